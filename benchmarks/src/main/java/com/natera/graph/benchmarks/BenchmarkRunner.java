@@ -0,0 +1,53 @@
+package com.natera.graph.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so the allocation rate and the
+ * allocated bytes per operation are reported next to the timings. Accepts the
+ * usual JMH command line, e.g. {@code java -jar target/benchmarks.jar Path -p size=1000},
+ * the help and listing options are handled the same way as by
+ * {@link org.openjdk.jmh.Main} without running anything.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        CommandLineOptions commandLine;
+        try {
+            commandLine = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line:");
+            System.err.println(" " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldListProfilers()) {
+            commandLine.listProfilers();
+            return;
+        }
+        if (commandLine.shouldListResultFormats()) {
+            commandLine.listResultFormats();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        if (commandLine.shouldListWithParams()) {
+            new Runner(commandLine).listWithParams(commandLine);
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+    }
+}
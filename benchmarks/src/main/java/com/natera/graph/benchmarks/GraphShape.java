@@ -0,0 +1,102 @@
+package com.natera.graph.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Shapes of the generated graphs. Every shape produces the edge list of a
+ * graph with the vertices numbered from 0 to size - 1, the generation is
+ * deterministic for the given size.
+ */
+public enum GraphShape {
+    /**
+     * Single path through all of the vertices, the deepest possible search.
+     */
+    CHAIN {
+        @Override
+        int[][] edges(int size) {
+            int[][] edges = new int[size - 1][];
+            for (int i = 1; i < size; i++) {
+                edges[i - 1] = new int[] { i - 1, i };
+            }
+            return edges;
+        }
+    },
+    /**
+     * Square grid with edges to the right and down neighbors.
+     */
+    GRID {
+        @Override
+        int[][] edges(int size) {
+            int side = (int) Math.sqrt(size);
+            int[][] edges = new int[2 * side * (side - 1)][];
+            int count = 0;
+            for (int row = 0; row < side; row++) {
+                for (int column = 0; column < side; column++) {
+                    int v = row * side + column;
+                    if (column + 1 < side) {
+                        edges[count++] = new int[] { v, v + 1 };
+                    }
+                    if (row + 1 < side) {
+                        edges[count++] = new int[] { v, v + side };
+                    }
+                }
+            }
+            return edges;
+        }
+    },
+    /**
+     * Uniform random graph with the average degree of 8.
+     */
+    RANDOM {
+        @Override
+        int[][] edges(int size) {
+            Random random = new Random(size);
+            int[][] edges = new int[size * 4][];
+            for (int i = 0; i < edges.length; i++) {
+                edges[i] = new int[] { random.nextInt(size), random.nextInt(size) };
+            }
+            return edges;
+        }
+    },
+    /**
+     * Preferential attachment graph, the degrees follow the power law: every new
+     * vertex is linked to 4 vertices chosen with the probability proportional to
+     * their degree.
+     */
+    POWER_LAW {
+        @Override
+        int[][] edges(int size) {
+            Random random = new Random(size);
+            int[][] edges = new int[(size - 1) * 4][];
+            // ends of all of the edges, picking a random one is picking by degree
+            int[] ends = new int[edges.length * 2];
+            int count = 0;
+            for (int v = 1; v < size; v++) {
+                for (int i = 0; i < 4; i++) {
+                    int target = count == 0 ? 0 : ends[random.nextInt(count * 2)];
+                    edges[count] = new int[] { v, target };
+                    ends[count * 2] = v;
+                    ends[count * 2 + 1] = target;
+                    count++;
+                }
+            }
+            return edges;
+        }
+    };
+
+    /**
+     * @return Pairs of source and target vertices
+     */
+    abstract int[][] edges(int size);
+
+    /**
+     * @return The number of vertices of the graph of the given size
+     */
+    int vertexCount(int size) {
+        if (this == GRID) {
+            int side = (int) Math.sqrt(size);
+            return side * side;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,40 @@
+package com.natera.graph.benchmarks;
+
+import com.natera.graph.AbstractGraph;
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.UndirectedGraph;
+
+/**
+ * Helpers to build the benchmarked graphs.
+ */
+final class Graphs {
+
+    private Graphs() {
+    }
+
+    /**
+     * @return Boxed vertices, so benchmarks measure the graph and not boxing
+     */
+    static Integer[] vertices(int count) {
+        Integer[] vertices = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            vertices[i] = i;
+        }
+        return vertices;
+    }
+
+    static AbstractGraph<Integer, Long> create(boolean directed) {
+        return directed ? new DirectedGraph<>() : new UndirectedGraph<>();
+    }
+
+    static AbstractGraph<Integer, Long> build(boolean directed, Integer[] vertices, int[][] edges) {
+        AbstractGraph<Integer, Long> graph = create(directed);
+        for (Integer v : vertices) {
+            graph.addVertex(v);
+        }
+        for (int e = 0; e < edges.length; e++) {
+            graph.addEdge(vertices[edges[e][0]], vertices[edges[e][1]], (long) e);
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,78 @@
+package com.natera.graph.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.natera.graph.AbstractGraph;
+import com.natera.graph.GraphBuilder;
+
+/**
+ * Time to load a whole random graph through {@code addVertex}/{@code addEdge},
+ * through the bulk methods with pre-sized maps and through the parallel
+ * builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IngestionBenchmark {
+
+    @Param({ "10000", "1000000" })
+    int size;
+
+    @Param({ "true", "false" })
+    boolean directed;
+
+    private Integer[] vertices;
+    private int[][] edges;
+
+    @Setup
+    public void setUp() {
+        vertices = Graphs.vertices(size);
+        edges = GraphShape.RANDOM.edges(size);
+    }
+
+    @Benchmark
+    public AbstractGraph<Integer, Long> addOneByOne() {
+        return Graphs.build(directed, vertices, edges);
+    }
+
+    @Benchmark
+    public AbstractGraph<Integer, Long> addPresized() {
+        AbstractGraph<Integer, Long> graph = Graphs.create(directed);
+        graph.ensureCapacity(vertices.length, edges.length);
+        for (Integer v : vertices) {
+            graph.addVertex(v);
+        }
+        for (int e = 0; e < edges.length; e++) {
+            graph.addEdge(vertices[edges[e][0]], vertices[edges[e][1]], (long) e);
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public AbstractGraph<Integer, Long> builder() {
+        GraphBuilder<Integer, Long> builder = new GraphBuilder<>(Graphs.create(directed), vertices.length,
+                edges.length);
+        for (Integer v : vertices) {
+            builder.addVertex(v);
+        }
+        for (int e = 0; e < edges.length; e++) {
+            builder.addEdge(vertices[edges[e][0]], vertices[edges[e][1]], (long) e);
+        }
+        return builder.build();
+    }
+}
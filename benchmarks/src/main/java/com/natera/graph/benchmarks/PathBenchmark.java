@@ -0,0 +1,73 @@
+package com.natera.graph.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.natera.graph.AbstractGraph;
+import com.natera.graph.PathStrategy;
+
+/**
+ * Path queries between random pairs of vertices and the full traversal of the
+ * graphs of different shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathBenchmark {
+    private static final int PAIRS = 1024;
+
+    @Param({ "CHAIN", "GRID", "RANDOM", "POWER_LAW" })
+    GraphShape shape;
+
+    @Param({ "1000", "100000" })
+    int size;
+
+    @Param({ "DEPTH_FIRST", "BREADTH_FIRST", "BIDIRECTIONAL" })
+    PathStrategy strategy;
+
+    private AbstractGraph<Integer, Long> graph;
+    private Integer[] sources;
+    private Integer[] targets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Integer[] vertices = Graphs.vertices(shape.vertexCount(size));
+        graph = Graphs.build(false, vertices, shape.edges(size));
+        Random random = new Random(42);
+        sources = new Integer[PAIRS];
+        targets = new Integer[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            sources[i] = vertices[random.nextInt(vertices.length)];
+            targets[i] = vertices[random.nextInt(vertices.length)];
+        }
+    }
+
+    @Benchmark
+    public List<Long> getPath() {
+        int pair = next++ & (PAIRS - 1);
+        return graph.getPath(sources[pair], targets[pair], strategy);
+    }
+
+    @Benchmark
+    public void traverse(Blackhole blackhole) {
+        graph.traverse(sources[next++ & (PAIRS - 1)], blackhole::consume);
+    }
+}
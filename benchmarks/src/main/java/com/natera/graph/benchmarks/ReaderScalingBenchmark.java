@@ -0,0 +1,101 @@
+package com.natera.graph.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.natera.graph.ConcurrentGraphWrapper;
+import com.natera.graph.Graph;
+import com.natera.graph.PathStrategy;
+
+/**
+ * Throughput of read only queries of the wrapper based on the read/write lock
+ * and of the optimistic one from 1 to 64 reader threads. The queries are
+ * bidirectional searches between neighbor ids on a random sparse graph, they
+ * visit few vertices, so the cost of the lock is a noticeable part of every
+ * query.
+ * <p>
+ * JMH runs a benchmark method on a fixed number of threads, so the readers are
+ * the threads of a pool sharing a fixed number of queries per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderScalingBenchmark {
+    private static final int SIZE = 10000;
+    private static final int QUERIES = 4096;
+
+    @Param({ "LOCKED", "OPTIMISTIC" })
+    String implementation;
+
+    @Param({ "1", "2", "4", "8", "16", "32", "64" })
+    int readers;
+
+    private Graph<Integer, Long> graph;
+    private Integer[] vertices;
+    private ExecutorService pool;
+    private List<Callable<Integer>> tasks;
+
+    @Setup
+    public void setUp() {
+        vertices = Graphs.vertices(SIZE);
+        Graph<Integer, Long> built = Graphs.build(false, vertices, GraphShape.RANDOM.edges(SIZE));
+        graph = "LOCKED".equals(implementation) ? new ConcurrentGraphWrapper<>(built, false)
+                : ConcurrentGraphWrapper.optimistic(built);
+        pool = Executors.newFixedThreadPool(readers);
+        tasks = new ArrayList<>(readers);
+        for (int t = 0; t < readers; t++) {
+            tasks.add(this::read);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private Integer read() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int found = 0;
+        for (int i = 0; i < QUERIES / readers; i++) {
+            int v = random.nextInt(SIZE);
+            if (graph.getPath(vertices[v], vertices[(v + 1) % SIZE], PathStrategy.BIDIRECTIONAL) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int readAll() throws InterruptedException, ExecutionException {
+        int found = 0;
+        for (Future<Integer> result : pool.invokeAll(tasks)) {
+            found += result.get();
+        }
+        return found;
+    }
+}
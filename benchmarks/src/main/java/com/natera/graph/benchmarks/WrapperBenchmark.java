@@ -0,0 +1,127 @@
+package com.natera.graph.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.natera.graph.ConcurrentGraph;
+import com.natera.graph.ConcurrentGraphWrapper;
+import com.natera.graph.Graph;
+import com.natera.graph.PathStrategy;
+
+/**
+ * Throughput of the thread safe graphs shared by readers searching paths and
+ * writers adding edges, at 7:1, 3:1 and 1:1 reader/writer ratios.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WrapperBenchmark {
+    private static final int SIZE = 10000;
+
+    /**
+     * LOCKED and OPTIMISTIC are modes of {@link ConcurrentGraphWrapper},
+     * LOCK_FREE is {@link ConcurrentGraph}.
+     */
+    @Param({ "LOCKED", "OPTIMISTIC", "LOCK_FREE" })
+    String implementation;
+
+    private Graph<Integer, Long> graph;
+    private Integer[] vertices;
+    private final AtomicLong edgeIds = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        vertices = Graphs.vertices(SIZE);
+        int[][] edges = GraphShape.RANDOM.edges(SIZE);
+        switch (implementation) {
+        case "LOCKED":
+            graph = new ConcurrentGraphWrapper<>(Graphs.build(false, vertices, edges), false);
+            break;
+        case "OPTIMISTIC":
+            graph = ConcurrentGraphWrapper.optimistic(Graphs.build(false, vertices, edges));
+            break;
+        default:
+            graph = new ConcurrentGraph<>(false, SIZE, edges.length);
+            for (Integer v : vertices) {
+                graph.addVertex(v);
+            }
+            for (int e = 0; e < edges.length; e++) {
+                graph.addEdge(vertices[edges[e][0]], vertices[edges[e][1]], (long) e);
+            }
+        }
+        edgeIds.set(edges.length);
+    }
+
+    private List<Long> read() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return graph.getPath(vertices[random.nextInt(SIZE)], vertices[random.nextInt(SIZE)],
+                PathStrategy.BIDIRECTIONAL);
+    }
+
+    private boolean write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return graph.addEdge(vertices[random.nextInt(SIZE)], vertices[random.nextInt(SIZE)],
+                edgeIds.getAndIncrement());
+    }
+
+    @Benchmark
+    @Group("readers7writers1")
+    @GroupThreads(7)
+    public List<Long> read7() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("readers7writers1")
+    @GroupThreads(1)
+    public boolean write1of7() {
+        return write();
+    }
+
+    @Benchmark
+    @Group("readers3writers1")
+    @GroupThreads(3)
+    public List<Long> read3() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("readers3writers1")
+    @GroupThreads(1)
+    public boolean write1of3() {
+        return write();
+    }
+
+    @Benchmark
+    @Group("readers1writers1")
+    @GroupThreads(1)
+    public List<Long> read1() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("readers1writers1")
+    @GroupThreads(1)
+    public boolean write1of1() {
+        return write();
+    }
+}
@@ -1,31 +1,77 @@
 package com.natera.graph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 import com.natera.graph.holders.EdgesHolder;
+import com.natera.graph.metrics.GraphListener;
+import com.natera.graph.metrics.Operation;
+import com.natera.graph.topology.LandmarkIndex;
+import com.natera.graph.topology.LazyTraversal;
+import com.natera.graph.topology.ParallelTraversal;
+import com.natera.graph.topology.Topology;
+import com.natera.graph.topology.TopologySearch;
+import com.natera.graph.topology.VertexHeuristic;
+import com.natera.graph.util.UnionFind;
 
-public abstract class AbstractGraph<V, E> implements Graph<V, E> {
+public abstract class AbstractGraph<V, E> implements Graph<V, E>, Topology {
 	final static Logger logger = Logger.getLogger(AbstractGraph.class);
 
-	protected Map<V, EdgesHolder<E>> vertices = new HashMap<>();
+	protected Map<V, EdgesHolder<V, E>> vertices = new HashMap<>();
 	protected Map<E, EdgeMetaData> edges = new HashMap<>();
+	private Object[] holders = new Object[16];
+	/**
+	 * Weakly connected components, vertices are the elements given by their ids.
+	 */
+	private final UnionFind components = new UnionFind();
+	private GraphListener listener;
+
+	/**
+	 * Sets the listener to receive the measurements of the operations. Without
+	 * listener nothing is measured.
+	 * 
+	 * @param listener The listener or null to stop measuring
+	 * @see com.natera.graph.metrics.GraphMetrics
+	 */
+	public void setListener(GraphListener listener) {
+		this.listener = listener;
+	}
 
 	/**
-	 * Associates given vertex with a new instance of EdgesHolder.
+	 * Associates given vertex with a new instance of EdgesHolder. The vertex gets
+	 * the next dense id, searches keep their state in arrays indexed by these ids.
 	 * 
 	 * @return true if the edge was actually added
 	 * @see EdgesHolder
 	 */
 	public boolean addVertex(V v) {
+		GraphListener listener = this.listener;
+		if (listener == null) {
+			return insertVertex(v);
+		}
+		long started = System.nanoTime();
+		boolean added = insertVertex(v);
+		listener.operationCompleted(Operation.ADD_VERTEX, System.nanoTime() - started, 0, 0);
+		return added;
+	}
+
+	private boolean insertVertex(V v) {
 		if (v == null) {
 			return false;
 		}
@@ -35,11 +81,34 @@ public abstract class AbstractGraph<V, E> implements Graph<V, E> {
 			}
 			return false;
 		}
-		EdgesHolder<E> holder = createEdgesHolder();
+		int id = vertices.size();
+		if (id == holders.length) {
+			holders = Arrays.copyOf(holders, id << 1);
+		}
+		EdgesHolder<V, E> holder = createEdgesHolder(v, id);
+		holders[id] = holder;
+		components.add();
 		vertices.put(v, holder);
 		return true;
 	}
 
+	/**
+	 * Adds the vertices skipping null and already added ones. The vertices map
+	 * is grown once for the whole collection.
+	 *
+	 * @return The number of added vertices
+	 */
+	public int addVertices(Collection<? extends V> vs) {
+		ensureCapacity(vertices.size() + vs.size(), 0);
+		int count = 0;
+		for (V v : vs) {
+			if (addVertex(v)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * Adds edge between the specified vertices. The method expects what vertices
 	 * are already in graph.
@@ -47,39 +116,382 @@ public abstract class AbstractGraph<V, E> implements Graph<V, E> {
 	 * @return true if the edge was added
 	 */
 	public boolean addEdge(V src, V dst, E e) {
-		if (e == null) {
+		GraphListener listener = this.listener;
+		if (listener == null) {
+			return insertEdge(src, dst, e);
+		}
+		long started = System.nanoTime();
+		boolean added = insertEdge(src, dst, e);
+		listener.operationCompleted(Operation.ADD_EDGE, System.nanoTime() - started, 0, 0);
+		return added;
+	}
+
+	private boolean insertEdge(V src, V dst, E e) {
+		long ends = registerEdge(src, dst, e);
+		if (ends < 0) {
 			return false;
 		}
+		EdgesHolder<V, E> srcHolder = holder((int) (ends >>> 32));
+		EdgesHolder<V, E> dstHolder = holder((int) ends);
+		srcHolder.addOutgoingEdge(e, dstHolder);
+		dstHolder.addIngoingEdge(e, srcHolder);
+		return true;
+	}
+
+	/**
+	 * Adds the edges between the vertices given by the functions. Edges which can
+	 * not be added are skipped the same way as {@link #addEdge(Object, Object, Object)}
+	 * does. The edges map is grown once for the whole collection.
+	 *
+	 * @param es     Edges to be added
+	 * @param source Function returning the source vertex of the edge
+	 * @param target Function returning the destination vertex of the edge
+	 * @return The number of added edges
+	 */
+	public int addEdges(Collection<? extends E> es, Function<? super E, ? extends V> source,
+			Function<? super E, ? extends V> target) {
+		ensureCapacity(0, edges.size() + es.size());
+		int count = 0;
+		for (E e : es) {
+			if (e != null && addEdge(source.apply(e), target.apply(e), e)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Grows the internal structures to keep the specified number of vertices and
+	 * edges without rehashing.
+	 *
+	 * @param vertexCount Expected number of vertices
+	 * @param edgeCount   Expected number of edges
+	 */
+	public void ensureCapacity(int vertexCount, int edgeCount) {
+		if (vertexCount > vertices.size()) {
+			vertices = resize(vertices, vertexCount);
+			if (vertexCount > holders.length) {
+				holders = Arrays.copyOf(holders, vertexCount);
+			}
+			components.ensureCapacity(vertexCount);
+		}
+		if (edgeCount > edges.size()) {
+			edges = resize(edges, edgeCount);
+		}
+	}
+
+	private static <K, T> Map<K, T> resize(Map<K, T> map, int expectedSize) {
+		if (map.size() > expectedSize / 2) {
+			// the map rehashes at most once on its own
+			return map;
+		}
+		Map<K, T> resized = new HashMap<>((int) (expectedSize / 0.75f) + 1);
+		resized.putAll(map);
+		return resized;
+	}
+
+	/**
+	 * Checks the edge and puts it into the edges map without linking the holders.
+	 *
+	 * @return Ids of the source and destination vertices packed into a long or -1
+	 *         if the edge can not be added
+	 */
+	long registerEdge(V src, V dst, E e) {
+		if (e == null) {
+			return -1;
+		}
 		if (edges.containsKey(e)) {
 			if (logger.isEnabledFor(Level.WARN)) {
 				logger.warn(String.format("An attempt to add already inserted edge \"%s\"", e));
 			}
-			return false;
+			return -1;
 		}
-		if (!vertices.containsKey(src) || !vertices.containsKey(dst)) {
+		int srcId = getVertexId(src);
+		int dstId = getVertexId(dst);
+		if (srcId < 0 || dstId < 0) {
 			if (logger.isEnabledFor(Level.WARN)) {
 				logger.warn(String.format("An attempt to add edge \"%s\" to a not existent vertex", e));
 			}
-			return false;
+			return -1;
 		}
-		EdgesHolder<E> srcHolder = vertices.get(src);
-		srcHolder.addOutgoingEdge(e);
-		EdgesHolder<E> dstHolder = vertices.get(dst);
-		dstHolder.addIngoingEdge(e);
 		edges.put(e, new EdgeMetaData(src, dst));
-		return true;
+		components.union(srcId, dstId);
+		return ((long) srcId << 32) | dstId;
 	}
 
 	/**
 	 * Finds path between two vertices. Returns null if path is not found.
 	 */
 	public List<E> getPath(V v1, V v2) {
-		List<E> path = new ArrayList<>();
-		Set<V> seenVertices = new HashSet<>();
-		if (searchPath(v1, v2, seenVertices, path)) {
-			return path;
+		return getPath(v1, v2, PathStrategy.DEPTH_FIRST);
+	}
+
+	/**
+	 * Finds path between two vertices using the specified strategy. Returns null
+	 * if path is not found.
+	 */
+	public List<E> getPath(V v1, V v2, PathStrategy strategy) {
+		GraphListener listener = this.listener;
+		if (listener == null) {
+			return findPath(v1, v2, strategy);
+		}
+		long started = System.nanoTime();
+		long visited = TopologySearch.visitedVertices();
+		long scanned = TopologySearch.scannedEdges();
+		List<E> path = findPath(v1, v2, strategy);
+		searchCompleted(listener, Operation.GET_PATH, started, visited, scanned);
+		return path;
+	}
+
+	private List<E> findPath(V v1, V v2, PathStrategy strategy) {
+		int start = getVertexId(v1);
+		int target = getVertexId(v2);
+		if (start < 0 || target < 0 || !mayReach(start, target)) {
+			return null;
+		}
+		switch (strategy) {
+		case BREADTH_FIRST:
+			return toEdges(TopologySearch.breadthFirstPath(this, start, target));
+		case BIDIRECTIONAL:
+			return toEdges(TopologySearch.bidirectionalPath(this, start, target));
+		case DEPTH_FIRST:
+		default:
+			return toEdges(TopologySearch.depthFirstPath(this, start, target));
+		}
+	}
+
+	/**
+	 * Finds paths with the minimal number of edges from the source to each of the
+	 * targets by a single breadth first search, which stops as soon as all of the
+	 * targets are reached.
+	 * 
+	 * @return Paths in the order of the targets, null for not reachable targets
+	 */
+	public List<List<E>> getPaths(V source, Collection<? extends V> targets) {
+		GraphListener listener = this.listener;
+		if (listener == null) {
+			return findPaths(source, targets);
+		}
+		long started = System.nanoTime();
+		long visited = TopologySearch.visitedVertices();
+		long scanned = TopologySearch.scannedEdges();
+		List<List<E>> paths = findPaths(source, targets);
+		searchCompleted(listener, Operation.GET_PATHS, started, visited, scanned);
+		return paths;
+	}
+
+	private List<List<E>> findPaths(V source, Collection<? extends V> targets) {
+		int start = getVertexId(source);
+		int[] ends = connectedIds(start, targets);
+		if (ends == null) {
+			return new ArrayList<>(Collections.nCopies(targets.size(), (List<E>) null));
+		}
+		return toPaths(TopologySearch.breadthFirstPaths(this, start, ends));
+	}
+
+	/**
+	 * Finds paths with the minimal number of edges from each of the sources to the
+	 * target by a single breadth first search following the edges backwards from
+	 * the target.
+	 * 
+	 * @return Paths in the order of the sources, null for the sources which can not
+	 *         reach the target
+	 */
+	public List<List<E>> getPaths(Collection<? extends V> sources, V target) {
+		GraphListener listener = this.listener;
+		if (listener == null) {
+			return findPaths(sources, target);
+		}
+		long started = System.nanoTime();
+		long visited = TopologySearch.visitedVertices();
+		long scanned = TopologySearch.scannedEdges();
+		List<List<E>> paths = findPaths(sources, target);
+		searchCompleted(listener, Operation.GET_PATHS, started, visited, scanned);
+		return paths;
+	}
+
+	private List<List<E>> findPaths(Collection<? extends V> sources, V target) {
+		int end = getVertexId(target);
+		int[] starts = connectedIds(end, sources);
+		if (starts == null) {
+			return new ArrayList<>(Collections.nCopies(sources.size(), (List<E>) null));
+		}
+		return toPaths(TopologySearch.breadthFirstPathsTo(this, starts, end));
+	}
+
+	/**
+	 * Finds the minimal numbers of edges between all of the sources and all of the
+	 * targets. Sources are searched by the groups of 64 sharing a single bit
+	 * parallel breadth first search.
+	 * 
+	 * @return Distances indexed by the positions of the source and the target, -1
+	 *         for not reachable or unknown vertices and 0 for the target equal to
+	 *         the source
+	 * @see TopologySearch#multiSourceDistances(Topology, int[], int[])
+	 */
+	public int[][] getDistances(List<? extends V> sources, List<? extends V> targets) {
+		int[][] distances = new int[sources.size()][targets.size()];
+		for (int[] row : distances) {
+			Arrays.fill(row, -1);
+		}
+		// only the known vertices are searched, the positions map them back
+		int[] sourceIds = vertexIds(sources);
+		int[] targetIds = vertexIds(targets);
+		int[] sourcePositions = knownPositions(sourceIds);
+		int[] targetPositions = knownPositions(targetIds);
+		if (sourcePositions.length == 0 || targetPositions.length == 0) {
+			return distances;
+		}
+		int[][] known = TopologySearch.multiSourceDistances(this, idsAt(sourceIds, sourcePositions),
+				idsAt(targetIds, targetPositions));
+		for (int i = 0; i < sourcePositions.length; i++) {
+			for (int j = 0; j < targetPositions.length; j++) {
+				distances[sourcePositions[i]][targetPositions[j]] = known[i][j];
+			}
+		}
+		return distances;
+	}
+
+	private int[] vertexIds(List<? extends V> list) {
+		int[] ids = new int[list.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = getVertexId(list.get(i));
+		}
+		return ids;
+	}
+
+	/**
+	 * @return Positions of the ids of the vertices which are in the graph
+	 */
+	private static int[] knownPositions(int[] ids) {
+		int[] positions = new int[ids.length];
+		int count = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] >= 0) {
+				positions[count++] = i;
+			}
+		}
+		return Arrays.copyOf(positions, count);
+	}
+
+	private static int[] idsAt(int[] ids, int[] positions) {
+		int[] result = new int[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			result[i] = ids[positions[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * @return Ids of the vertices, vertices which are not in the graph or not
+	 *         connected to the specified one are replaced by the specified one, or
+	 *         null if there are no connected vertices
+	 */
+	private int[] connectedIds(int id, Collection<? extends V> vs) {
+		if (id < 0) {
+			return null;
+		}
+		int[] ids = new int[vs.size()];
+		int i = 0;
+		boolean connected = false;
+		for (V v : vs) {
+			int other = getVertexId(v);
+			if (other >= 0 && other != id && components.connected(id, other)) {
+				ids[i++] = other;
+				connected = true;
+			} else {
+				// paths to the vertex itself are never found
+				ids[i++] = id;
+			}
+		}
+		return connected ? ids : null;
+	}
+
+	private List<List<E>> toPaths(long[][] paths) {
+		List<List<E>> result = new ArrayList<>(paths.length);
+		for (long[] path : paths) {
+			result.add(toEdges(path));
+		}
+		return result;
+	}
+
+	/**
+	 * Finds path with the minimal total cost between two vertices. Returns null if
+	 * path is not found.
+	 * 
+	 * @throws IllegalArgumentException if the cost of a visited edge is negative
+	 */
+	public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost) {
+		return getShortestPath(v1, v2, cost, null);
+	}
+
+	/**
+	 * Finds path with the minimal total cost between two vertices guided by the
+	 * heuristic. Returns null if path is not found. Without heuristic it is
+	 * Dijkstra's algorithm, otherwise A*.
+	 * 
+	 * @throws IllegalArgumentException if the cost of a visited edge is negative
+	 */
+	public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost,
+			ToDoubleBiFunction<? super V, ? super V> heuristic) {
+		return shortestPath(v1, v2, cost, heuristic == null ? null
+				: (v, t) -> heuristic.applyAsDouble(holder(v).getVertex(), holder(t).getVertex()));
+	}
+
+	/**
+	 * Finds path with the minimal total cost between two vertices by A* guided by
+	 * the landmark distances. Returns null if path is not found.
+	 * 
+	 * @param landmarks Index built by {@link #buildLandmarkIndex} for the same
+	 *                  costs
+	 * @throws IllegalArgumentException if the cost of a visited edge is negative
+	 */
+	public List<E> getGuidedPath(V v1, V v2, ToDoubleFunction<? super E> cost, LandmarkIndex landmarks) {
+		return shortestPath(v1, v2, cost, landmarks.heuristic());
+	}
+
+	/**
+	 * Computes the distances between the landmark vertices and all of the other
+	 * vertices in parallel. The index should be rebuilt after the graph is
+	 * modified.
+	 * 
+	 * @param count Number of landmarks
+	 * @param cost  Non negative cost of the edge or null to count the edges
+	 */
+	public LandmarkIndex buildLandmarkIndex(int count, ToDoubleFunction<? super E> cost) {
+		return buildLandmarkIndex(count, cost, ForkJoinPool.commonPool());
+	}
+
+	public LandmarkIndex buildLandmarkIndex(int count, ToDoubleFunction<? super E> cost, ForkJoinPool pool) {
+		if (cost == null) {
+			return LandmarkIndex.build(this, count, isDirected(), null, null, pool);
 		}
-		return null;
+		return LandmarkIndex.build(this, count, isDirected(),
+				(v, slot) -> cost.applyAsDouble(holder(v).getOutgoingEdge(slot)),
+				(v, slot) -> cost.applyAsDouble(holder(v).getIngoingEdge(slot)), pool);
+	}
+
+	private List<E> shortestPath(V v1, V v2, ToDoubleFunction<? super E> cost, VertexHeuristic heuristic) {
+		GraphListener listener = this.listener;
+		if (listener == null) {
+			return findShortestPath(v1, v2, cost, heuristic);
+		}
+		long started = System.nanoTime();
+		long visited = TopologySearch.visitedVertices();
+		long scanned = TopologySearch.scannedEdges();
+		List<E> path = findShortestPath(v1, v2, cost, heuristic);
+		searchCompleted(listener, Operation.GET_SHORTEST_PATH, started, visited, scanned);
+		return path;
+	}
+
+	private List<E> findShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost, VertexHeuristic heuristic) {
+		int start = getVertexId(v1);
+		int target = getVertexId(v2);
+		if (start < 0 || target < 0 || !mayReach(start, target)) {
+			return null;
+		}
+		return toEdges(TopologySearch.cheapestPath(this, start, target,
+				(v, slot) -> cost.applyAsDouble(holder(v).getOutgoingEdge(slot)), heuristic));
 	}
 
 	/**
@@ -98,86 +510,260 @@ public abstract class AbstractGraph<V, E> implements Graph<V, E> {
 			// choose a random vertex
 			start = vertices.keySet().iterator().next();
 		}
-		if (!vertices.containsKey(start)) {
+		int id = getVertexId(start);
+		if (id < 0) {
 			if (logger.isEnabledFor(Level.WARN)) {
 				logger.warn(String.format("Not existent vertex was specfied: %s", start));
 			}
 			return;
 		}
-		doTraverse(start, consumer, new HashSet<V>());
+		GraphListener listener = this.listener;
+		if (listener == null) {
+			TopologySearch.depthFirst(this, id, v -> consumer.accept(holder(v).getVertex()));
+			return;
+		}
+		long started = System.nanoTime();
+		long visited = TopologySearch.visitedVertices();
+		long scanned = TopologySearch.scannedEdges();
+		TopologySearch.depthFirst(this, id, v -> consumer.accept(holder(v).getVertex()));
+		searchCompleted(listener, Operation.TRAVERSE, started, visited, scanned);
 	}
 
 	/**
-	 * Recursively walks through the graph.
-	 * @param v Vertex to start with
-	 * @param consumer The user defined function to accept vertices
-	 * @param seenVertices The set of already visited vertices
+	 * Lazy depth first traversal, vertices come in the same order as they are
+	 * passed to the consumer of {@link #traverse(Object, Consumer)}. The graph
+	 * should not be modified while the iterator is in use.
+	 * 
+	 * @param start Vertex to start with or random if it is not specified
+	 * @return Iterator computing the reachable vertices on demand
 	 */
-	protected void doTraverse(V v, Consumer<? super V> consumer, Set<V> seenVertices) {
-		consumer.accept(v);
-		seenVertices.add(v);
-		EdgesHolder<E> holder = vertices.get(v);
-		if (holder == null) {
-			return;
+	public Iterator<V> dfs(V start) {
+		int id = lazyStart(start);
+		if (id < 0) {
+			return Collections.emptyIterator();
 		}
-		Set<E> outEdges = holder.getOutgoingEdges();
-		if (outEdges == null) {
-			return;
+		return LazyTraversal.mapped(LazyTraversal.depthFirst(this, id), this::getVertex);
+	}
+
+	/**
+	 * Lazy breadth first traversal. The graph should not be modified while the
+	 * iterator is in use.
+	 * 
+	 * @param start Vertex to start with or random if it is not specified
+	 * @return Iterator computing the reachable vertices on demand
+	 */
+	public Iterator<V> bfs(V start) {
+		int id = lazyStart(start);
+		if (id < 0) {
+			return Collections.emptyIterator();
 		}
-		for (E edge : outEdges) {
-			EdgeMetaData edgeData = edges.get(edge);
-			// get opposite vertex
-			V nextVertex = v.equals(edgeData.getDst()) ? edgeData.getSrc() : edgeData.getDst();
-			if (seenVertices.contains(nextVertex)) {
-				continue;
-			}
-			doTraverse(nextVertex, consumer, seenVertices);
+		return LazyTraversal.mapped(LazyTraversal.breadthFirst(this, id), this::getVertex);
+	}
+
+	/**
+	 * Stream of the reachable vertices computed on demand in breadth first order,
+	 * so short-circuiting operations do only the work they need. Parallel stream
+	 * splits the queued vertices between the tasks, the order is lost then. The
+	 * graph should not be modified while the stream is in use.
+	 * 
+	 * @param start Vertex to start with or random if it is not specified
+	 * @see LazyTraversal#spliterator(Topology, int)
+	 */
+	public Stream<V> stream(V start) {
+		int id = lazyStart(start);
+		if (id < 0) {
+			return Stream.empty();
 		}
+		return StreamSupport.intStream(LazyTraversal.spliterator(this, id), false).mapToObj(this::getVertex);
 	}
 
 	/**
-	 * Recursively searches path from current to the target vertex.
-	 *
-	 * @param current Currently verified vertex
-	 * @param target  The target vertex to be searched
-	 * @param seenVertices The set of already visited vertices
-	 * @param path    List of edges from current to target vertex
-	 * @return true if the path is found
-	 */
-	protected boolean searchPath(V current, V target, Set<V> seenVertices, List<E> path) {
-		seenVertices.add(current);
-		EdgesHolder<E> holder = vertices.get(current);
-		if (holder == null) {
-			return false;
+	 * @return The id of the start vertex or -1 if the traversal is empty
+	 */
+	private int lazyStart(V start) {
+		if (vertices.isEmpty()) {
+			return -1;
 		}
-		Set<E> outEdges = holder.getOutgoingEdges();
-		if (outEdges == null) {
-			return false;
+		int id = start == null ? 0 : getVertexId(start);
+		if (id < 0 && logger.isEnabledFor(Level.WARN)) {
+			logger.warn(String.format("Not existent vertex was specfied: %s", start));
 		}
-		for (E edge : outEdges) {
-			EdgeMetaData edgeData = edges.get(edge);
-			// get opposite vertex
-			V nextVertex = current.equals(edgeData.getDst()) ? edgeData.getSrc() : edgeData.getDst();
-			if (seenVertices.contains(nextVertex)) {
-				continue;
-			}
-			if (nextVertex.equals(target) || searchPath(nextVertex, target, seenVertices, path)) {
-				path.add(0, edge);
-				return true;
+		return id;
+	}
+
+	/**
+	 * Reports the search together with the visits made since the totals of the
+	 * thread were taken. Searches started by the user functions are included.
+	 */
+	private static void searchCompleted(GraphListener listener, Operation operation, long started, long visited,
+			long scanned) {
+		listener.operationCompleted(operation, System.nanoTime() - started,
+				TopologySearch.visitedVertices() - visited, TopologySearch.scannedEdges() - scanned);
+	}
+
+	/**
+	 * Checks if there is a path between the vertices ignoring the direction of the
+	 * edges. Takes the time logarithmic in the number of vertices at most.
+	 * 
+	 * @return true if the vertices are in the same weakly connected component
+	 */
+	public boolean isConnected(V v1, V v2) {
+		int id1 = getVertexId(v1);
+		int id2 = getVertexId(v2);
+		return id1 >= 0 && id2 >= 0 && components.connected(id1, id2);
+	}
+
+	/**
+	 * @return The number of weakly connected components
+	 */
+	public int componentCount() {
+		return components.setCount();
+	}
+
+	/**
+	 * Checks if there may be a path from the start vertex to the target one, so
+	 * the searches between the vertices which are known to be disconnected are
+	 * skipped.
+	 * 
+	 * @return false if there is no path, true if there may be one
+	 */
+	boolean mayReach(int start, int target) {
+		return components.connected(start, target);
+	}
+
+	/**
+	 * @return Representative of the weakly connected component of the vertex,
+	 *         changes when the component is merged with another one
+	 */
+	int componentOf(int id) {
+		return components.find(id);
+	}
+
+	/**
+	 * Parallel breadth first traversal running on the common fork/join pool.
+	 * 
+	 * @see #parallelTraverse(Object, Consumer, ForkJoinPool)
+	 */
+	public void parallelTraverse(V start, Consumer<? super V> consumer) {
+		parallelTraverse(start, consumer, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Breadth first traversal expanding every level by parallel tasks. The
+	 * consumer is called concurrently from the threads of the pool, once for every
+	 * reachable vertex, so it should be thread safe. The graph should not be
+	 * modified until the method returns.
+	 * 
+	 * @param start    Vertex to start with or random if it is not specified
+	 * @param consumer Thread safe function to accept traversed vertices
+	 * @param pool     Pool to run the tasks
+	 * @see ParallelTraversal
+	 */
+	public void parallelTraverse(V start, Consumer<? super V> consumer, ForkJoinPool pool) {
+		if (vertices.isEmpty()) {
+			return;
+		}
+		int id = start == null ? 0 : getVertexId(start);
+		if (id < 0) {
+			if (logger.isEnabledFor(Level.WARN)) {
+				logger.warn(String.format("Not existent vertex was specfied: %s", start));
 			}
+			return;
+		}
+		ParallelTraversal.breadthFirst(this, id, v -> consumer.accept(holder(v).getVertex()), pool);
+	}
+
+	/**
+	 * Replaces edge references of the path by the edges kept in the holders.
+	 */
+	private List<E> toEdges(long[] path) {
+		if (path == null) {
+			return null;
 		}
-		return false;
+		List<E> result = new ArrayList<>(path.length);
+		for (long edge : path) {
+			EdgesHolder<V, E> holder = holder(Topology.vertexOf(edge));
+			int slot = Topology.slotOf(edge);
+			result.add(Topology.isIngoing(edge) ? holder.getIngoingEdge(slot) : holder.getOutgoingEdge(slot));
+		}
+		return result;
+	}
+
+	/**
+	 * @return The id of the vertex or -1 if it is not in the graph
+	 */
+	public int getVertexId(V v) {
+		EdgesHolder<V, E> holder = v == null ? null : vertices.get(v);
+		return holder == null ? -1 : holder.getId();
+	}
+
+	/**
+	 * @return The vertex with the specified id
+	 */
+	public V getVertex(int id) {
+		return holder(id).getVertex();
+	}
+
+	@SuppressWarnings("unchecked")
+	protected EdgesHolder<V, E> holder(int id) {
+		return (EdgesHolder<V, E>) holders[id];
+	}
+
+	@Override
+	public int vertexCount() {
+		return vertices.size();
+	}
+
+	@Override
+	public int outDegree(int v) {
+		return holder(v).getOutgoingDegree();
 	}
 
+	@Override
+	public int outTarget(int v, int slot) {
+		return holder(v).getOutgoingNeighbor(slot).getId();
+	}
+
+	@Override
+	public int inDegree(int v) {
+		return holder(v).getIngoingDegree();
+	}
+
+	@Override
+	public int inSource(int v, int slot) {
+		return holder(v).getIngoingNeighbor(slot).getId();
+	}
+
+	/**
+	 * Creates an immutable copy of the graph in the compressed sparse row layout.
+	 * Vertices keep their ids and edges keep their slots, so the copy is searched
+	 * in the same order as this graph. Later modifications of this graph are not
+	 * reflected in the copy.
+	 * 
+	 * @return New instance of FrozenGraph
+	 */
+	public FrozenGraph<V, E> freeze() {
+		return FrozenGraph.build(this);
+	}
+
+	/**
+	 * @return true if the graph keeps the direction of the edges
+	 */
+	public abstract boolean isDirected();
+
 	/**
 	 * Factory method to create the EdgesHolder structure for vertex edges.
 	 * Ancestors should redefine this method to provide holder of the desired type.
 	 * 
+	 * @param v  The vertex the holder belongs to
+	 * @param id Dense id of the vertex
 	 * @return New instance of EdgesHolder
+	 * @see com.natera.graph.holders.CompactUndirectedEdgesHolder
+	 * @see com.natera.graph.holders.CompactDirectedEdgesHolder
 	 * @see com.natera.graph.holders.UndirectedEdgesHolder
 	 * @see com.natera.graph.holders.DirectedEdgesHolder
 	 */
-	protected abstract EdgesHolder<E> createEdgesHolder();
+	protected abstract EdgesHolder<V, E> createEdgesHolder(V v, int id);
 
 	/**
 	 * Structure to keep some helpful data about the Edge.
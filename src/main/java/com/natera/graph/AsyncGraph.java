@@ -0,0 +1,265 @@
+package com.natera.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Asynchronous facade for the path queries of a thread safe graph. Queries are
+ * queued and drained by a limited number of tasks running on the executor.
+ * Every task takes a batch of the queued queries and runs them under a single
+ * acquisition of the read lock when the graph is {@link ConcurrentGraphWrapper},
+ * so a burst of concurrent requests acquires the lock once per batch instead of
+ * once per query. The futures are completed after the lock is released.
+ * <p>
+ * By default the tasks run on a fixed pool of platform threads, one per
+ * processor, such executor is shut down by {@link #close()}. The arrays of the
+ * searches are pooled per thread, so a few long lived threads reuse them for
+ * every batch. Virtual threads are not used by default: every batch would run
+ * on a new thread and allocate the search arrays, up to tens of bytes per
+ * vertex, again. The queries are CPU bound, so virtual threads would not run
+ * more of them at once anyway. An executor passed to the constructor should
+ * reuse its threads for the same reason.
+ *
+ * @param <V> the vertex type
+ * @param <E> the edge type
+ */
+public class AsyncGraph<V, E> implements AutoCloseable {
+    /**
+     * Maximal number of queries run under a single lock acquisition.
+     */
+    static final int BATCH_SIZE = 256;
+
+    private final Graph<V, E> graph;
+    private final Executor executor;
+    private final boolean ownExecutor;
+    private final int concurrency;
+    private final ConcurrentLinkedQueue<Request<V, E, ?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainers = new AtomicInteger();
+
+    /**
+     * Creates the facade running on the default executor with one draining task
+     * per processor.
+     *
+     * @param graph Thread safe graph
+     */
+    public AsyncGraph(Graph<V, E> graph) {
+        this(graph, defaultExecutor(), Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * @param graph       Thread safe graph
+     * @param executor    Executor to run the queries, it is not shut down by the
+     *                    facade
+     * @param concurrency Maximal number of batches running at the same time
+     */
+    public AsyncGraph(Graph<V, E> graph, Executor executor, int concurrency) {
+        this(graph, executor, concurrency, false);
+    }
+
+    private AsyncGraph(Graph<V, E> graph, Executor executor, int concurrency, boolean ownExecutor) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency should be positive: " + concurrency);
+        }
+        this.graph = graph;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.ownExecutor = ownExecutor;
+    }
+
+    /**
+     * Creates a fixed pool of daemon threads, one per processor.
+     */
+    static ExecutorService defaultExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+            Thread thread = new Thread(task, "async-graph-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<List<E>> getPathAsync(V v1, V v2) {
+        return getPathAsync(v1, v2, PathStrategy.DEPTH_FIRST);
+    }
+
+    public CompletableFuture<List<E>> getPathAsync(V v1, V v2, PathStrategy strategy) {
+        return submit(g -> g.getPath(v1, v2, strategy));
+    }
+
+    public CompletableFuture<List<E>> getShortestPathAsync(V v1, V v2, ToDoubleFunction<? super E> cost) {
+        return submit(g -> g.getShortestPath(v1, v2, cost));
+    }
+
+    /**
+     * Finds the paths between the pairs of vertices.
+     *
+     * @param pairs Start and target vertices of the paths
+     * @return Future of the paths in the order of the pairs, not found paths are
+     *         null
+     */
+    public CompletableFuture<List<List<E>>> getPaths(Collection<? extends Map.Entry<? extends V, ? extends V>> pairs) {
+        return getPaths(pairs, PathStrategy.DEPTH_FIRST);
+    }
+
+    public CompletableFuture<List<List<E>>> getPaths(Collection<? extends Map.Entry<? extends V, ? extends V>> pairs,
+            PathStrategy strategy) {
+        List<CompletableFuture<List<E>>> futures = new ArrayList<>(pairs.size());
+        for (Map.Entry<? extends V, ? extends V> pair : pairs) {
+            V v1 = pair.getKey();
+            V v2 = pair.getValue();
+            futures.add(enqueue(g -> g.getPath(v1, v2, strategy)));
+        }
+        drain();
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(done -> {
+            List<List<E>> paths = new ArrayList<>(futures.size());
+            for (CompletableFuture<List<E>> future : futures) {
+                paths.add(future.join());
+            }
+            return paths;
+        });
+    }
+
+    /**
+     * Queues the query to be run over the graph.
+     *
+     * @param query Function running a query over the graph, it may be invoked more
+     *              than once by the optimistic wrapper
+     * @return Future of the query result
+     */
+    public <T> CompletableFuture<T> submit(Function<? super Graph<V, E>, ? extends T> query) {
+        CompletableFuture<T> future = enqueue(query);
+        drain();
+        return future;
+    }
+
+    private <T> CompletableFuture<T> enqueue(Function<? super Graph<V, E>, ? extends T> query) {
+        Request<V, E, T> request = new Request<>(query);
+        queue.add(request);
+        return request.future;
+    }
+
+    /**
+     * Starts a draining task unless the maximal number of them is running.
+     */
+    private void drain() {
+        int running;
+        do {
+            running = drainers.get();
+            if (running >= concurrency || queue.isEmpty()) {
+                return;
+            }
+        } while (!drainers.compareAndSet(running, running + 1));
+        try {
+            executor.execute(this::runBatches);
+        } catch (RuntimeException e) {
+            drainers.decrementAndGet();
+            failQueued(e);
+        }
+    }
+
+    private void runBatches() {
+        try {
+            List<Request<V, E, ?>> batch = new ArrayList<>(BATCH_SIZE);
+            for (Request<V, E, ?> request = queue.poll(); request != null; request = queue.poll()) {
+                batch.add(request);
+                while (batch.size() < BATCH_SIZE && (request = queue.poll()) != null) {
+                    batch.add(request);
+                }
+                runBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            drainers.decrementAndGet();
+        }
+        // a request queued after the last poll may have found all of the drainers
+        // busy
+        drain();
+    }
+
+    private void runBatch(List<Request<V, E, ?>> batch) {
+        Object[] results;
+        try {
+            if (graph instanceof ConcurrentGraphWrapper) {
+                results = ((ConcurrentGraphWrapper<V, E>) graph).query(g -> runQueries(g, batch));
+            } else {
+                results = runQueries(graph, batch);
+            }
+        } catch (RuntimeException | Error e) {
+            batch.forEach(request -> request.future.completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < results.length; i++) {
+            batch.get(i).complete(results[i]);
+        }
+    }
+
+    /**
+     * @return Results of the queries, failures are returned as {@link Failure}
+     */
+    private static <V, E> Object[] runQueries(Graph<V, E> graph, List<Request<V, E, ?>> batch) {
+        Object[] results = new Object[batch.size()];
+        for (int i = 0; i < results.length; i++) {
+            try {
+                results[i] = batch.get(i).query.apply(graph);
+            } catch (RuntimeException e) {
+                results[i] = new Failure(e);
+            }
+        }
+        return results;
+    }
+
+    private void failQueued(Throwable cause) {
+        for (Request<V, E, ?> request = queue.poll(); request != null; request = queue.poll()) {
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Shuts down the default executor. Queries submitted afterwards fail.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private static final class Request<V, E, T> {
+        private final Function<? super Graph<V, E>, ? extends T> query;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Request(Function<? super Graph<V, E>, ? extends T> query) {
+            this.query = query;
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            if (result instanceof Failure) {
+                future.completeExceptionally(((Failure) result).cause);
+            } else {
+                future.complete((T) result);
+            }
+        }
+    }
+
+    /**
+     * Exception thrown by a query of the batch.
+     */
+    private static final class Failure {
+        private final RuntimeException cause;
+
+        Failure(RuntimeException cause) {
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.natera.graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Decorator keeping the results of {@link #getPath(Object, Object, PathStrategy)}
+ * in a bounded cache with the least recently used eviction. The graph only
+ * grows, so a found path stays valid for ever, although a shorter one may
+ * appear later. A missing path may be created by a new edge only if the start
+ * vertex is in the weakly connected component of one of the edge vertices, so
+ * cached misses are grouped by the component of the start vertex and a new edge
+ * drops the misses of the two components it joins.
+ * <p>
+ * The graph should be modified through the decorator only. The decorator is as
+ * thread safe as the decorated graph, the cache itself is guarded by its
+ * monitor while the searches run without it. Cached paths are
+ * returned as unmodifiable lists. Queries with the user defined costs are not
+ * cached.
+ *
+ * @param <V> the vertex type
+ * @param <E> the edge type
+ */
+public class CachingGraph<V, E> implements Graph<V, E> {
+    private final AbstractGraph<V, E> graph;
+    private final LinkedHashMap<Query<V>, Result<V, E>> cache;
+    private final Map<Integer, Set<Query<V>>> misses = new HashMap<>();
+    private long hits;
+    private long queries;
+    /**
+     * Number of the added edges, results of the searches overlapped by an
+     * addition are not cached.
+     */
+    private long generation;
+
+    /**
+     * @param graph    The graph to be decorated
+     * @param capacity Maximal number of cached results
+     */
+    public CachingGraph(AbstractGraph<V, E> graph, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+        this.graph = graph;
+        cache = new LinkedHashMap<Query<V>, Result<V, E>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Query<V>, Result<V, E>> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                forgetMiss(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public boolean addVertex(V v) {
+        return graph.addVertex(v);
+    }
+
+    @Override
+    public boolean addEdge(V src, V dst, E e) {
+        int srcId = graph.getVertexId(src);
+        int dstId = graph.getVertexId(dst);
+        synchronized (cache) {
+            if (srcId >= 0 && dstId >= 0) {
+                // components are taken before the edge joins them
+                invalidate(graph.componentOf(srcId));
+                invalidate(graph.componentOf(dstId));
+            }
+            generation++;
+            return graph.addEdge(src, dst, e);
+        }
+    }
+
+    @Override
+    public List<E> getPath(V v1, V v2) {
+        return getPath(v1, v2, PathStrategy.DEPTH_FIRST);
+    }
+
+    @Override
+    public List<E> getPath(V v1, V v2, PathStrategy strategy) {
+        Query<V> query = new Query<>(v1, v2, strategy);
+        long searchedGeneration;
+        synchronized (cache) {
+            queries++;
+            Result<V, E> result = cache.get(query);
+            if (result != null) {
+                hits++;
+                return result.path;
+            }
+            searchedGeneration = generation;
+        }
+        List<E> path = graph.getPath(v1, v2, strategy);
+        int start = graph.getVertexId(v1);
+        if (start < 0 || graph.getVertexId(v2) < 0) {
+            // vertices may be added later, so such queries are not cached
+            return path;
+        }
+        synchronized (cache) {
+            if (searchedGeneration != generation) {
+                // an edge was added during the search
+                return path;
+            }
+            Result<V, E> result;
+            if (path == null) {
+                result = new Result<>(null, graph.componentOf(start));
+                misses.computeIfAbsent(result.component, component -> new HashSet<>()).add(query);
+            } else {
+                result = new Result<>(Collections.unmodifiableList(path), -1);
+            }
+            Result<V, E> replaced = cache.put(query, result);
+            if (replaced != null) {
+                forgetMiss(query, replaced);
+            }
+            return result.path;
+        }
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost) {
+        return graph.getShortestPath(v1, v2, cost);
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost,
+            ToDoubleBiFunction<? super V, ? super V> heuristic) {
+        return graph.getShortestPath(v1, v2, cost, heuristic);
+    }
+
+    @Override
+    public void traverse(V start, Consumer<? super V> consumer) {
+        graph.traverse(start, consumer);
+    }
+
+    /**
+     * @return The number of path queries answered from the cache
+     */
+    public long hitCount() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    /**
+     * @return The number of path queries passed to the graph
+     */
+    public long missCount() {
+        synchronized (cache) {
+            return queries - hits;
+        }
+    }
+
+    /**
+     * @return The number of cached results
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private void invalidate(int component) {
+        Set<Query<V>> stale = misses.remove(component);
+        if (stale != null) {
+            cache.keySet().removeAll(stale);
+        }
+    }
+
+    private void forgetMiss(Query<V> query, Result<V, E> result) {
+        if (result.path != null) {
+            return;
+        }
+        Set<Query<V>> componentMisses = misses.get(result.component);
+        if (componentMisses != null) {
+            componentMisses.remove(query);
+            if (componentMisses.isEmpty()) {
+                misses.remove(result.component);
+            }
+        }
+    }
+
+    private static final class Query<V> {
+        private final V start;
+        private final V target;
+        private final PathStrategy strategy;
+
+        Query(V start, V target, PathStrategy strategy) {
+            this.start = start;
+            this.target = target;
+            this.strategy = strategy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Query)) {
+                return false;
+            }
+            Query<?> other = (Query<?>) o;
+            return strategy == other.strategy && Objects.equals(start, other.start)
+                    && Objects.equals(target, other.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return (Objects.hashCode(start) * 31 + Objects.hashCode(target)) * 31 + strategy.hashCode();
+        }
+    }
+
+    /**
+     * Cached path or a miss with the component of the start vertex.
+     */
+    private static final class Result<V, E> {
+        private final List<E> path;
+        private final int component;
+
+        Result(List<E> path, int component) {
+            this.path = path;
+            this.component = component;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.natera.graph;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary form of the vertices or edges kept in the graph snapshot files.
+ * Values are written to a stream and read back from the mapped file, so
+ * {@link #read(ByteBuffer)} should consume exactly the bytes written by
+ * {@link #write(Object, DataOutput)}.
+ *
+ * @param <T> the type of the values
+ * @see FrozenGraph#save(java.nio.file.Path, Codec, Codec)
+ */
+public interface Codec<T> {
+
+    void write(T value, DataOutput out) throws IOException;
+
+    /**
+     * Reads the value starting at the current position of the buffer and moves
+     * the position past it.
+     */
+    T read(ByteBuffer in);
+
+    Codec<Integer> INTEGER = new Codec<Integer>() {
+        @Override
+        public void write(Integer value, DataOutput out) throws IOException {
+            out.writeInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer in) {
+            return in.getInt();
+        }
+    };
+
+    Codec<Long> LONG = new Codec<Long>() {
+        @Override
+        public void write(Long value, DataOutput out) throws IOException {
+            out.writeLong(value);
+        }
+
+        @Override
+        public Long read(ByteBuffer in) {
+            return in.getLong();
+        }
+    };
+
+    /**
+     * Strings of any length in UTF-8 prefixed by the number of bytes.
+     */
+    Codec<String> STRING = new Codec<String>() {
+        @Override
+        public void write(String value, DataOutput out) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer in) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+}
@@ -0,0 +1,267 @@
+package com.natera.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.natera.graph.holders.ConcurrentEdgesHolder;
+import com.natera.graph.holders.EdgesHolder;
+import com.natera.graph.topology.Topology;
+import com.natera.graph.topology.TopologySearch;
+
+/**
+ * Thread safe graph without the global lock. Vertices and edges are kept in
+ * concurrent maps and the edges of every vertex in
+ * {@link ConcurrentEdgesHolder}, so writers adding edges to different vertices
+ * do not block each other and readers take no locks at all. Only the
+ * assignment of vertex ids is serialized.
+ * <p>
+ * Every query works with the vertices added before it was started: edges
+ * leading to newer vertices are treated as loops and skipped. Edges added
+ * while a query runs may or may not be seen by it.
+ *
+ * @param <V> the vertex type
+ * @param <E> the edge type
+ */
+public class ConcurrentGraph<V, E> implements Graph<V, E> {
+    final static Logger logger = Logger.getLogger(ConcurrentGraph.class);
+
+    private final boolean directed;
+    private final ConcurrentHashMap<V, EdgesHolder<V, E>> vertices;
+    private final Set<E> edges;
+    private final Object idLock = new Object();
+    private volatile Object[] holders = new Object[16];
+    private volatile int vertexCount;
+
+    public ConcurrentGraph(boolean directed) {
+        this(directed, 16, 16);
+    }
+
+    /**
+     * @param directed         true to keep the direction of the edges
+     * @param expectedVertices Expected number of vertices
+     * @param expectedEdges    Expected number of edges
+     */
+    public ConcurrentGraph(boolean directed, int expectedVertices, int expectedEdges) {
+        this.directed = directed;
+        vertices = new ConcurrentHashMap<>(expectedVertices);
+        edges = ConcurrentHashMap.newKeySet(expectedEdges);
+    }
+
+    /**
+     * @return true if the graph keeps the direction of the edges
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return The number of vertices
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return The number of edges
+     */
+    public int edgeCount() {
+        return edges.size();
+    }
+
+    @Override
+    public boolean addVertex(V v) {
+        if (v == null) {
+            return false;
+        }
+        boolean[] added = new boolean[1];
+        vertices.computeIfAbsent(v, key -> {
+            added[0] = true;
+            return register(key);
+        });
+        if (!added[0] && logger.isDebugEnabled()) {
+            logger.debug(String.format("Vertex is already in the graph: %s", v));
+        }
+        return added[0];
+    }
+
+    /**
+     * Creates the holder with the next id. The holder is published in the array
+     * before the count, so readers see the holders of all of the counted ids.
+     */
+    private EdgesHolder<V, E> register(V v) {
+        synchronized (idLock) {
+            int id = vertexCount;
+            EdgesHolder<V, E> holder = new ConcurrentEdgesHolder<>(v, id, directed);
+            Object[] array = holders;
+            if (id == array.length) {
+                array = Arrays.copyOf(array, id + (id >> 1));
+            }
+            array[id] = holder;
+            holders = array;
+            vertexCount = id + 1;
+            return holder;
+        }
+    }
+
+    @Override
+    public boolean addEdge(V src, V dst, E e) {
+        if (e == null) {
+            return false;
+        }
+        EdgesHolder<V, E> srcHolder = src == null ? null : vertices.get(src);
+        EdgesHolder<V, E> dstHolder = dst == null ? null : vertices.get(dst);
+        if (srcHolder == null || dstHolder == null) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("An attempt to add edge \"%s\" to a not existent vertex", e));
+            }
+            return false;
+        }
+        if (!edges.add(e)) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("An attempt to add already inserted edge \"%s\"", e));
+            }
+            return false;
+        }
+        srcHolder.addOutgoingEdge(e, dstHolder);
+        dstHolder.addIngoingEdge(e, srcHolder);
+        return true;
+    }
+
+    /**
+     * Finds path between two vertices in depth first order. Returns null if path
+     * is not found.
+     */
+    @Override
+    public List<E> getPath(V v1, V v2) {
+        return getPath(v1, v2, PathStrategy.DEPTH_FIRST);
+    }
+
+    @Override
+    public List<E> getPath(V v1, V v2, PathStrategy strategy) {
+        EdgesHolder<V, E> start = v1 == null ? null : vertices.get(v1);
+        EdgesHolder<V, E> target = v2 == null ? null : vertices.get(v2);
+        if (start == null || target == null) {
+            return null;
+        }
+        View view = new View();
+        switch (strategy) {
+        case BREADTH_FIRST:
+            return view.toEdges(TopologySearch.breadthFirstPath(view, start.getId(), target.getId()));
+        case BIDIRECTIONAL:
+            return view.toEdges(TopologySearch.bidirectionalPath(view, start.getId(), target.getId()));
+        case DEPTH_FIRST:
+        default:
+            return view.toEdges(TopologySearch.depthFirstPath(view, start.getId(), target.getId()));
+        }
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost) {
+        return getShortestPath(v1, v2, cost, null);
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost,
+            ToDoubleBiFunction<? super V, ? super V> heuristic) {
+        EdgesHolder<V, E> start = v1 == null ? null : vertices.get(v1);
+        EdgesHolder<V, E> target = v2 == null ? null : vertices.get(v2);
+        if (start == null || target == null) {
+            return null;
+        }
+        View view = new View();
+        return view.toEdges(TopologySearch.cheapestPath(view, start.getId(), target.getId(),
+                (v, slot) -> cost.applyAsDouble(view.holder(v).getOutgoingEdge(slot)),
+                heuristic == null ? null
+                        : (v, t) -> heuristic.applyAsDouble(view.holder(v).getVertex(),
+                                view.holder(t).getVertex())));
+    }
+
+    /**
+     * Depth first implementation of traverse algorithm.
+     *
+     * @param start    Vertex to start with or random if it is not specified
+     * @param consumer User defined function to accept traversed vertices
+     */
+    @Override
+    public void traverse(V start, Consumer<? super V> consumer) {
+        EdgesHolder<V, E> holder = start == null ? null : vertices.get(start);
+        View view = new View();
+        if (view.limit == 0) {
+            return;
+        }
+        if (start == null) {
+            // choose a random vertex
+            holder = view.holder(0);
+        }
+        if (holder == null) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("Not existent vertex was specfied: %s", start));
+            }
+            return;
+        }
+        TopologySearch.depthFirst(view, holder.getId(), v -> consumer.accept(view.holder(v).getVertex()));
+    }
+
+    /**
+     * Topology of the vertices added before the view was created. The count is
+     * read before the array, so the array contains all of the counted holders.
+     */
+    private class View implements Topology {
+        private final int limit = vertexCount;
+        private final Object[] snapshot = holders;
+
+        @SuppressWarnings("unchecked")
+        EdgesHolder<V, E> holder(int id) {
+            return (EdgesHolder<V, E>) snapshot[id];
+        }
+
+        List<E> toEdges(long[] path) {
+            if (path == null) {
+                return null;
+            }
+            List<E> result = new ArrayList<>(path.length);
+            for (long edge : path) {
+                EdgesHolder<V, E> holder = holder(Topology.vertexOf(edge));
+                int slot = Topology.slotOf(edge);
+                result.add(Topology.isIngoing(edge) ? holder.getIngoingEdge(slot) : holder.getOutgoingEdge(slot));
+            }
+            return result;
+        }
+
+        @Override
+        public int vertexCount() {
+            return limit;
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return holder(v).getOutgoingDegree();
+        }
+
+        @Override
+        public int outTarget(int v, int slot) {
+            int target = holder(v).getOutgoingNeighbor(slot).getId();
+            return target < limit ? target : v;
+        }
+
+        @Override
+        public int inDegree(int v) {
+            return holder(v).getIngoingDegree();
+        }
+
+        @Override
+        public int inSource(int v, int slot) {
+            int source = holder(v).getIngoingNeighbor(slot).getId();
+            return source < limit ? source : v;
+        }
+    }
+}
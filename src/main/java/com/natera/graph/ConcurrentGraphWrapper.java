@@ -2,63 +2,208 @@ package com.natera.graph;
 
 import java.util.List;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+import com.natera.graph.metrics.GraphListener;
+import com.natera.graph.topology.TopologySearch;
 
 /**
- * Allows to create thread safe versions of Graph.
+ * Allows to create thread safe versions of Graph. The whole graph is guarded by
+ * a single lock, so writers block all of the readers.
+ * <p>
+ * By default the lock is {@link ReentrantReadWriteLock}. The wrapper created by
+ * {@link #optimistic(Graph)} uses {@link StampedLock} instead: queries run
+ * without locking and validate the stamp at the end, a query overlapped by a
+ * write is repeated under the read lock. An optimistic query may observe the
+ * graph in the middle of a modification, so whatever it throws is ignored if
+ * the stamp is not valid any more, and its searches are aborted as soon as a
+ * writer takes the lock, so a walk over a half modified graph does not run
+ * for long. User defined functions passed to such queries may be invoked more
+ * than once. Traversals call the consumer for every vertex, so they always run
+ * under the read lock.
+ * <p>
+ * The wait and hold times of the locks are reported to the listener set by
+ * {@link #setListener(GraphListener)}, successful optimistic reads do not take
+ * the lock and are not reported. Operations are measured by the wrapped graph
+ * itself: an optimistic query which is completed but overlapped by a write is
+ * reported by it as well as its repetition under the read lock, so such queries
+ * are counted twice.
+ *
+ * @see ConcurrentGraph
  */
 public class ConcurrentGraphWrapper<V, E> implements Graph<V, E> {
 
     private Graph<V, E> graph;
     private final ReentrantReadWriteLock readWriteLock;
+    private final StampedLock stampedLock;
+    private volatile GraphListener listener;
 
     public ConcurrentGraphWrapper(Graph<V, E> graph, boolean fair) {
         this.graph = graph;
         readWriteLock = new ReentrantReadWriteLock(fair);
+        stampedLock = null;
+    }
+
+    private ConcurrentGraphWrapper(Graph<V, E> graph) {
+        this.graph = graph;
+        readWriteLock = null;
+        stampedLock = new StampedLock();
+    }
+
+    /**
+     * Creates the wrapper using optimistic reads of {@link StampedLock}.
+     */
+    public static <V, E> ConcurrentGraphWrapper<V, E> optimistic(Graph<V, E> graph) {
+        return new ConcurrentGraphWrapper<>(graph);
+    }
+
+    /**
+     * Sets the listener to receive the lock times. Operations of the wrapped
+     * graph are measured by the graph itself.
+     *
+     * @param listener The listener or null to stop measuring
+     */
+    public void setListener(GraphListener listener) {
+        this.listener = listener;
     }
 
     @Override
     public boolean addVertex(V v) {
-        readWriteLock.writeLock().lock();
-        try {
-            return graph.addVertex(v);
-        } finally {
-            readWriteLock.writeLock().unlock();
-        }
-
+        return write(() -> graph.addVertex(v));
     }
 
     @Override
     public boolean addEdge(V src, V dst, E e) {
-        readWriteLock.writeLock().lock();
-        try {
-            return graph.addEdge(src, dst, e);
-        } finally {
-            readWriteLock.writeLock().unlock();
-        }
-
+        return write(() -> graph.addEdge(src, dst, e));
     }
 
     @Override
     public List<E> getPath(V v1, V v2) {
-        readWriteLock.readLock().lock();
-        try {
-            return graph.getPath(v1, v2);
-        } finally {
-            readWriteLock.readLock().unlock();
-        }
+        return read(() -> graph.getPath(v1, v2));
+    }
 
+    @Override
+    public List<E> getPath(V v1, V v2, PathStrategy strategy) {
+        return read(() -> graph.getPath(v1, v2, strategy));
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost) {
+        return read(() -> graph.getShortestPath(v1, v2, cost));
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost,
+            ToDoubleBiFunction<? super V, ? super V> heuristic) {
+        return read(() -> graph.getShortestPath(v1, v2, cost, heuristic));
     }
 
     @Override
     public void traverse(V start, Consumer<? super V> consumer) {
-        readWriteLock.readLock().lock();
-        try {
+        readLocked(() -> {
             graph.traverse(start, consumer);
+            return null;
+        });
+    }
+
+    /**
+     * Runs several queries under a single acquisition of the read lock. In the
+     * optimistic mode the function is run without locking first and may be
+     * invoked more than once, so it should not have side effects.
+     *
+     * @param query Function running the queries over the wrapped graph, the graph
+     *              should not be modified by it
+     * @return The result of the function
+     */
+    public <T> T query(Function<? super Graph<V, E>, ? extends T> query) {
+        return read(() -> query.apply(graph));
+    }
+
+    private <T> T write(Supplier<T> action) {
+        GraphListener listener = this.listener;
+        long requested = listener == null ? 0 : System.nanoTime();
+        long stamp = 0;
+        if (stampedLock == null) {
+            readWriteLock.writeLock().lock();
+        } else {
+            stamp = stampedLock.writeLock();
+        }
+        long acquired = listener == null ? 0 : acquired(listener, true, requested);
+        try {
+            return action.get();
         } finally {
-            readWriteLock.readLock().unlock();
+            if (stampedLock == null) {
+                readWriteLock.writeLock().unlock();
+            } else {
+                stampedLock.unlockWrite(stamp);
+            }
+            if (listener != null) {
+                listener.lockReleased(true, System.nanoTime() - acquired);
+            }
         }
+    }
+
+    /**
+     * Runs the query under the read lock or optimistically. An optimistic query
+     * may observe the graph in the middle of a modification, so the runtime
+     * exceptions thrown by it are rethrown only if the stamp is still valid.
+     */
+    private <T> T read(Supplier<T> query) {
+        if (stampedLock != null) {
+            long optimistic = stampedLock.tryOptimisticRead();
+            if (optimistic != 0) {
+                try {
+                    T result = TopologySearch.abortable(() -> !stampedLock.validate(optimistic), query);
+                    if (stampedLock.validate(optimistic)) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    if (stampedLock.validate(optimistic)) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        return readLocked(query);
+    }
 
+    private <T> T readLocked(Supplier<T> query) {
+        long stamp = 0;
+        GraphListener listener = this.listener;
+        long requested = listener == null ? 0 : System.nanoTime();
+        if (stampedLock == null) {
+            readWriteLock.readLock().lock();
+        } else {
+            stamp = stampedLock.readLock();
+        }
+        long acquired = listener == null ? 0 : acquired(listener, false, requested);
+        try {
+            return query.get();
+        } finally {
+            if (stampedLock == null) {
+                readWriteLock.readLock().unlock();
+            } else {
+                stampedLock.unlockRead(stamp);
+            }
+            if (listener != null) {
+                listener.lockReleased(false, System.nanoTime() - acquired);
+            }
+        }
     }
 
+    /**
+     * Reports the wait time of the acquired lock.
+     *
+     * @return The time the lock was acquired at
+     */
+    private static long acquired(GraphListener listener, boolean write, long requested) {
+        long now = System.nanoTime();
+        listener.lockAcquired(write, now - requested);
+        return now;
+    }
 }
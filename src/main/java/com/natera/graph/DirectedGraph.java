@@ -1,13 +1,98 @@
 package com.natera.graph;
 
-import com.natera.graph.holders.DirectedEdgesHolder;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.natera.graph.holders.CompactDirectedEdgesHolder;
 import com.natera.graph.holders.EdgesHolder;
+import com.natera.graph.topology.Condensation;
 
 public class DirectedGraph<V, E> extends AbstractGraph<V, E> {
 
+    /**
+     * The last computed condensation, it is used to prune the path searches
+     * while the graph is not modified.
+     */
+    private volatile Condensation condensation;
+
+    @Override
+    public boolean isDirected() {
+        return true;
+    }
+
+    @Override
+    protected EdgesHolder<V, E> createEdgesHolder(V v, int id) {
+        return new CompactDirectedEdgesHolder<>(v, id);
+    }
+
+    /**
+     * Returns the strongly connected components and the acyclic graph of them.
+     * The result is cached until the graph is modified. While it is up to date
+     * the path searches between the vertices which can not reach each other by
+     * the order of their components are skipped.
+     *
+     * @return The condensation of the graph given by the vertex ids
+     * @see Condensation#mayReach(int, int)
+     */
+    public Condensation condensation() {
+        Condensation current = condensation;
+        if (current == null || !isCurrent(current)) {
+            current = Condensation.compute(this);
+            condensation = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return The strongly connected components in the topological order of the
+     *         condensation: edges between the components go from the earlier
+     *         component to the later one
+     */
+    public List<List<V>> stronglyConnectedComponents() {
+        Condensation current = condensation();
+        List<List<V>> result = new ArrayList<>(current.vertexCount());
+        for (int c = 0; c < current.vertexCount(); c++) {
+            int size = current.componentSize(c);
+            List<V> component = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                component.add(getVertex(current.member(c, i)));
+            }
+            result.add(component);
+        }
+        return result;
+    }
+
+    /**
+     * @return The vertices ordered so that every edge goes from the earlier vertex
+     *         to the later one or null if the graph has cycles or loops
+     */
+    public List<V> topologicalOrder() {
+        Condensation current = condensation();
+        if (!current.isAcyclic()) {
+            return null;
+        }
+        List<V> result = new ArrayList<>(current.vertexCount());
+        for (int c = 0; c < current.vertexCount(); c++) {
+            result.add(getVertex(current.member(c, 0)));
+        }
+        return result;
+    }
+
     @Override
-    protected EdgesHolder<E> createEdgesHolder() {
-        return new DirectedEdgesHolder<>();
+    boolean mayReach(int start, int target) {
+        if (!super.mayReach(start, target)) {
+            return false;
+        }
+        Condensation current = condensation;
+        return current == null || !isCurrent(current) || current.mayReach(start, target);
+    }
+
+    /**
+     * Edges are never removed, so the graph is not modified while the numbers of
+     * its vertices and edges are the same.
+     */
+    private boolean isCurrent(Condensation current) {
+        return current.sourceVertexCount() == vertices.size() && current.sourceEdgeCount() == edges.size();
     }
 
 }
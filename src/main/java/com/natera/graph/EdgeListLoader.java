@@ -0,0 +1,480 @@
+package com.natera.graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Loads edges from the text files with one edge per line, such as CSV files or
+ * whitespace separated edge lists. The file is cut into chunks on the line
+ * boundaries, the chunks are memory mapped and parsed by the tasks of a
+ * fork/join pool, while the calling thread adds the parsed batches to the graph
+ * in the order of the file. At most two chunks per thread of the pool are
+ * parsed ahead of the graph.
+ * <p>
+ * Lines are split into fields without creating strings, the factories get the
+ * fields through {@link Row}. Both vertices of every edge are added to the
+ * graph. Empty lines and lines starting with {@code #} are skipped, quoted
+ * fields are not supported. Rows the factories fail on or return null for are
+ * counted as skipped.
+ *
+ * @param <V> the vertex type
+ * @param <E> the edge type
+ */
+public class EdgeListLoader<V, E> {
+    final static Logger logger = Logger.getLogger(EdgeListLoader.class);
+
+    static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private final byte delimiter;
+    private final Function<? super Row, ? extends V> source;
+    private final Function<? super Row, ? extends V> target;
+    private final Function<? super Row, ? extends E> edge;
+    private int headerLines;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * @param delimiter Byte separating the fields, space splits the fields by any
+     *                  run of spaces and tabs
+     * @param source    Factory of the source vertex of the row
+     * @param target    Factory of the target vertex of the row
+     * @param edge      Factory of the edge of the row
+     */
+    public EdgeListLoader(char delimiter, Function<? super Row, ? extends V> source,
+            Function<? super Row, ? extends V> target, Function<? super Row, ? extends E> edge) {
+        if (delimiter > 0x7F || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Delimiter should be an ASCII character: " + (int) delimiter);
+        }
+        this.delimiter = (byte) delimiter;
+        this.source = source;
+        this.target = target;
+        this.edge = edge;
+    }
+
+    /**
+     * Creates the loader of comma separated files with the header line.
+     */
+    public static <V, E> EdgeListLoader<V, E> csv(Function<? super Row, ? extends V> source,
+            Function<? super Row, ? extends V> target, Function<? super Row, ? extends E> edge) {
+        return new EdgeListLoader<V, E>(',', source, target, edge).skipLines(1);
+    }
+
+    /**
+     * Creates the loader of whitespace separated edge lists.
+     */
+    public static <V, E> EdgeListLoader<V, E> edgeList(Function<? super Row, ? extends V> source,
+            Function<? super Row, ? extends V> target, Function<? super Row, ? extends E> edge) {
+        return new EdgeListLoader<>(' ', source, target, edge);
+    }
+
+    /**
+     * Sets the number of lines to be skipped at the beginning of the file.
+     */
+    public EdgeListLoader<V, E> skipLines(int lines) {
+        headerLines = lines;
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes parsed by a single task, the chunks are extended
+     * to the end of the line.
+     */
+    public EdgeListLoader<V, E> chunkSize(int bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive: " + bytes);
+        }
+        chunkSize = bytes;
+        return this;
+    }
+
+    /**
+     * Sets the pool to run the parsing tasks.
+     */
+    public EdgeListLoader<V, E> pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Loads the file into the graph. The graph is modified by the calling thread
+     * only.
+     *
+     * @return Statistics of the load
+     * @throws IOException if the file can not be read
+     */
+    public Statistics load(Path path, Graph<V, E> graph) throws IOException {
+        long started = System.nanoTime();
+        Statistics statistics = new Statistics();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            int window = Math.max(2, pool.getParallelism() * 2);
+            Deque<ForkJoinTask<Batch>> pending = new ArrayDeque<>();
+            int next = 0;
+            try {
+                while (next < bounds.length - 1 || !pending.isEmpty()) {
+                    while (next < bounds.length - 1 && pending.size() < window) {
+                        long from = bounds[next];
+                        long to = bounds[next + 1];
+                        boolean first = next == 0;
+                        pending.add(pool.submit(() -> parse(channel, from, to, first)));
+                        next++;
+                    }
+                    Batch batch = pending.poll().join();
+                    statistics.add(batch, apply(batch, graph));
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pending.forEach(task -> task.cancel(false));
+            }
+            statistics.bytes = channel.size();
+        }
+        statistics.nanos = System.nanoTime() - started;
+        if (statistics.skipped > 0 && logger.isEnabledFor(Level.WARN)) {
+            logger.warn(String.format("%d rows of %s were skipped", statistics.skipped, path));
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(String.format("Loaded %s: %s", path, statistics));
+        }
+        return statistics;
+    }
+
+    /**
+     * Cuts the file into chunks ending right after the line feeds.
+     *
+     * @return Positions of the chunks with the size of the file at the end
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long[] bounds = new long[16];
+        int count = 1;
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = 0;
+        while (position < size) {
+            long end = position + chunkSize;
+            if (end < size) {
+                end = lineEnd(channel, end - 1, buffer);
+            } else {
+                end = size;
+            }
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, count << 1);
+            }
+            bounds[count++] = end;
+            position = end;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * @return The position after the first line feed at or after the specified
+     *         one or the size of the file
+     */
+    private static long lineEnd(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private Batch parse(FileChannel channel, long from, long to, boolean first) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Batch batch = new Batch();
+        Row row = new Row(buffer, delimiter);
+        int limit = buffer.limit();
+        int skipLines = first ? headerLines : 0;
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            int lineEnd = end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+            if (skipLines > 0) {
+                skipLines--;
+            } else if (lineEnd > start && buffer.get(start) != '#') {
+                row.split(start, lineEnd);
+                batch.rows++;
+                try {
+                    V src = source.apply(row);
+                    V dst = target.apply(row);
+                    E e = edge.apply(row);
+                    if (src == null || dst == null || e == null) {
+                        batch.skipped++;
+                    } else {
+                        batch.add(src, dst, e);
+                    }
+                } catch (RuntimeException e) {
+                    batch.skipped++;
+                }
+            }
+            start = end + 1;
+        }
+        return batch;
+    }
+
+    /**
+     * @return The number of added edges
+     */
+    @SuppressWarnings("unchecked")
+    private int apply(Batch batch, Graph<V, E> graph) {
+        // known vertices are not added again to avoid the lookup and the logging
+        AbstractGraph<V, E> abstractGraph = graph instanceof AbstractGraph ? (AbstractGraph<V, E>) graph : null;
+        int added = 0;
+        for (int i = 0; i < batch.size; i++) {
+            V src = (V) batch.sources[i];
+            V dst = (V) batch.targets[i];
+            if (abstractGraph == null || abstractGraph.getVertexId(src) < 0) {
+                graph.addVertex(src);
+            }
+            if (abstractGraph == null || abstractGraph.getVertexId(dst) < 0) {
+                graph.addVertex(dst);
+            }
+            if (graph.addEdge(src, dst, (E) batch.edges[i])) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Fields of the parsed line. The row is reused for the next lines, so it is
+     * valid only during the call of the factory.
+     */
+    public static final class Row {
+        private final ByteBuffer buffer;
+        private final byte delimiter;
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int size;
+
+        Row(ByteBuffer buffer, byte delimiter) {
+            this.buffer = buffer;
+            this.delimiter = delimiter;
+        }
+
+        void split(int from, int to) {
+            size = 0;
+            int start = from;
+            if (delimiter == ' ') {
+                while (start < to) {
+                    while (start < to && isBlank(buffer.get(start))) {
+                        start++;
+                    }
+                    int end = start;
+                    while (end < to && !isBlank(buffer.get(end))) {
+                        end++;
+                    }
+                    if (end > start) {
+                        field(start, end);
+                    }
+                    start = end;
+                }
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == delimiter) {
+                    field(start, i);
+                    start = i + 1;
+                }
+            }
+            field(start, to);
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+
+        private void field(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size << 1);
+                ends = Arrays.copyOf(ends, size << 1);
+            }
+            starts[size] = start;
+            ends[size++] = end;
+        }
+
+        /**
+         * @return The number of fields
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Parses the field as a decimal number without creating a string.
+         *
+         * @throws NumberFormatException if the field is not a number
+         */
+        public long getLong(int field) {
+            check(field);
+            int position = starts[field];
+            int end = ends[field];
+            boolean negative = position < end && buffer.get(position) == '-';
+            if (negative || position < end && buffer.get(position) == '+') {
+                position++;
+            }
+            if (position == end) {
+                throw new NumberFormatException("Empty number in field " + field);
+            }
+            long value = 0;
+            for (; position < end; position++) {
+                int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                    throw new NumberFormatException("Invalid number: " + getString(field));
+                }
+                // accumulated negatively to reach Long.MIN_VALUE
+                value = value * 10 - digit;
+            }
+            if (!negative) {
+                if (value == Long.MIN_VALUE) {
+                    throw new NumberFormatException("Invalid number: " + getString(field));
+                }
+                value = -value;
+            }
+            return value;
+        }
+
+        /**
+         * @throws NumberFormatException if the field is not an int
+         */
+        public int getInt(int field) {
+            long value = getLong(field);
+            if ((int) value != value) {
+                throw new NumberFormatException("Invalid int: " + value);
+            }
+            return (int) value;
+        }
+
+        public double getDouble(int field) {
+            return Double.parseDouble(getString(field));
+        }
+
+        /**
+         * @return The field decoded from UTF-8
+         */
+        public String getString(int field) {
+            check(field);
+            byte[] bytes = new byte[ends[field] - starts[field]];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(starts[field] + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void check(int field) {
+            if (field < 0 || field >= size) {
+                throw new IndexOutOfBoundsException("Row has " + size + " fields: " + field);
+            }
+        }
+    }
+
+    /**
+     * Edges parsed from a chunk.
+     */
+    private static final class Batch {
+        private Object[] sources = new Object[1024];
+        private Object[] targets = new Object[1024];
+        private Object[] edges = new Object[1024];
+        private int size;
+        private int rows;
+        private int skipped;
+
+        void add(Object src, Object dst, Object e) {
+            if (size == edges.length) {
+                sources = Arrays.copyOf(sources, size << 1);
+                targets = Arrays.copyOf(targets, size << 1);
+                edges = Arrays.copyOf(edges, size << 1);
+            }
+            sources[size] = src;
+            targets[size] = dst;
+            edges[size++] = e;
+        }
+    }
+
+    /**
+     * Counters of a completed load.
+     */
+    public static final class Statistics {
+        private long rows;
+        private long edges;
+        private long skipped;
+        private long bytes;
+        private long nanos;
+
+        void add(Batch batch, int added) {
+            rows += batch.rows;
+            skipped += batch.skipped;
+            edges += added;
+        }
+
+        /**
+         * @return The number of parsed rows, skipped lines are not counted
+         */
+        public long rows() {
+            return rows;
+        }
+
+        /**
+         * @return The number of edges added to the graph
+         */
+        public long edges() {
+            return edges;
+        }
+
+        /**
+         * @return The number of rows the factories failed on
+         */
+        public long skipped() {
+            return skipped;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows, %d edges, %d skipped in %d ms (%.0f rows/s)", rows, edges, skipped,
+                    nanos / 1000000, rowsPerSecond());
+        }
+    }
+}
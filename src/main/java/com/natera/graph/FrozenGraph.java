@@ -0,0 +1,605 @@
+package com.natera.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.natera.graph.holders.EdgesHolder;
+import com.natera.graph.topology.LazyTraversal;
+import com.natera.graph.topology.ParallelTraversal;
+import com.natera.graph.topology.Topology;
+import com.natera.graph.topology.TopologySearch;
+
+/**
+ * Immutable graph in the compressed sparse row layout. Vertices are numbered by
+ * dense int ids and the edges of every vertex are stored contiguously: the
+ * edges of vertex v occupy positions from {@code offsets[v]} to
+ * {@code offsets[v + 1]} of the parallel targets and edge ids arrays. Directed
+ * graphs keep the second set of arrays for ingoing edges, undirected ones share
+ * the same arrays for both directions.
+ * <p>
+ * Instances are created by {@link AbstractGraph#freeze()} or loaded from a
+ * snapshot file written by {@link #save(Path, Codec, Codec)}. Any attempt to
+ * modify the graph throws {@link UnsupportedOperationException}.
+ *
+ * @param <V> the vertex type
+ * @param <E> the edge type
+ */
+public class FrozenGraph<V, E> implements Graph<V, E>, Topology {
+    final static Logger logger = Logger.getLogger(FrozenGraph.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x4E475246;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final boolean directed;
+    private final Object[] vertices;
+    private final Object[] edges;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inEdges;
+    /**
+     * Open addressing table of the vertex ids plus one, 0 marks the empty cells.
+     */
+    private final int[] index;
+
+    FrozenGraph(boolean directed, Object[] vertices, Object[] edges, int[] outOffsets, int[] outTargets,
+            int[] outEdges, int[] inOffsets, int[] inSources, int[] inEdges) {
+        this.directed = directed;
+        this.vertices = vertices;
+        this.edges = edges;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outEdges = outEdges;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inEdges = inEdges;
+
+        index = new int[Integer.highestOneBit(Math.max(1, vertices.length) * 2 - 1) << 1];
+        for (int v = 0; v < vertices.length; v++) {
+            int i = bucket(vertices[v]);
+            while (index[i] != 0) {
+                i = (i + 1) & (index.length - 1);
+            }
+            index[i] = v + 1;
+        }
+    }
+
+    /**
+     * Copies the graph keeping the ids of the vertices and the slots of the
+     * edges, so the searches visit the vertices in the same order as on the
+     * source graph. Edges get their ids in the order of the outgoing slots. The
+     * ingoing slot of an edge in directed graphs and its second slot in
+     * undirected ones are matched by the source vertex: parallel edges are kept
+     * by both holders in the order they were added.
+     *
+     * @param graph Graph to copy
+     */
+    static <V, E> FrozenGraph<V, E> build(AbstractGraph<V, E> graph) {
+        boolean directed = graph.isDirected();
+        int n = graph.vertexCount();
+        Object[] vertices = new Object[n];
+        int[] outOffsets = new int[n + 1];
+        // edges to the greater ids in undirected graphs or all edges in directed
+        // ones grouped by the target, every group is ordered by the sources
+        int[] groupOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            vertices[v] = graph.holder(v).getVertex();
+            int degree = graph.outDegree(v);
+            outOffsets[v + 1] = degree;
+            for (int slot = 0; slot < degree; slot++) {
+                int w = graph.outTarget(v, slot);
+                if (directed || w > v) {
+                    groupOffsets[w + 1]++;
+                }
+            }
+        }
+        prefixSum(outOffsets);
+        prefixSum(groupOffsets);
+        int[] outTargets = new int[outOffsets[n]];
+        int[] outEdges = new int[outOffsets[n]];
+        int[] groupSources = new int[groupOffsets[n]];
+        int[] groupEdges = new int[groupOffsets[n]];
+        int[] cursor = Arrays.copyOf(groupOffsets, n);
+        int[] matched = new int[n];
+        Object[] edges = new Object[graph.edges.size()];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            EdgesHolder<V, E> holder = graph.holder(v);
+            if (!directed) {
+                startGroup(groupOffsets, groupSources, matched, v);
+            }
+            for (int slot = 0; slot < holder.getOutgoingDegree(); slot++) {
+                int position = outOffsets[v] + slot;
+                int w = graph.outTarget(v, slot);
+                outTargets[position] = w;
+                if (directed || w >= v) {
+                    outEdges[position] = count;
+                    edges[count++] = holder.getOutgoingEdge(slot);
+                    if (directed || w > v) {
+                        groupSources[cursor[w]] = v;
+                        groupEdges[cursor[w]++] = outEdges[position];
+                    }
+                } else {
+                    outEdges[position] = groupEdges[matched[w]++];
+                }
+            }
+        }
+        if (!directed) {
+            return new FrozenGraph<>(false, vertices, edges, outOffsets, outTargets, outEdges, outOffsets,
+                    outTargets, outEdges);
+        }
+        int[] inOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] = graph.inDegree(v);
+        }
+        prefixSum(inOffsets);
+        int[] inSources = new int[inOffsets[n]];
+        int[] inEdges = new int[inOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            startGroup(groupOffsets, groupSources, matched, v);
+            for (int slot = 0; slot < graph.inDegree(v); slot++) {
+                int position = inOffsets[v] + slot;
+                int u = graph.inSource(v, slot);
+                inSources[position] = u;
+                inEdges[position] = groupEdges[matched[u]++];
+            }
+        }
+        return new FrozenGraph<>(true, vertices, edges, outOffsets, outTargets, outEdges, inOffsets,
+                inSources, inEdges);
+    }
+
+    /**
+     * Points every source of the group of the vertex to its first edge in the
+     * group.
+     */
+    private static void startGroup(int[] groupOffsets, int[] groupSources, int[] matched, int v) {
+        for (int i = groupOffsets[v + 1] - 1; i >= groupOffsets[v]; i--) {
+            matched[groupSources[i]] = i;
+        }
+    }
+
+    /**
+     * Writes the graph to the snapshot file. The file starts with the header of
+     * six ints: magic number, format version, 1 for directed graph, the numbers
+     * of vertices, edges and adjacency entries. It is followed by the compressed
+     * sparse row arrays, the ingoing ones for directed graphs only, then the
+     * vertices and the edges ordered by their ids in the form given by the codecs.
+     * All numbers are big-endian.
+     *
+     * @param path        File to be written, an existing one is replaced
+     * @param vertexCodec Binary form of the vertices
+     * @param edgeCodec   Binary form of the edges
+     * @see #load(Path, Codec, Codec)
+     */
+    @SuppressWarnings("unchecked")
+    public void save(Path path, Codec<? super V> vertexCodec, Codec<? super E> edgeCodec) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(directed ? 1 : 0);
+            out.writeInt(vertices.length);
+            out.writeInt(edges.length);
+            out.writeInt(outTargets.length);
+            writeInts(out, outOffsets);
+            writeInts(out, outTargets);
+            writeInts(out, outEdges);
+            if (directed) {
+                writeInts(out, inOffsets);
+                writeInts(out, inSources);
+                writeInts(out, inEdges);
+            }
+            for (Object v : vertices) {
+                vertexCodec.write((V) v, out);
+            }
+            for (Object e : edges) {
+                edgeCodec.write((E) e, out);
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Loads the graph from the snapshot file. The file is mapped into memory and
+     * the adjacency arrays are copied from it in bulk, only the vertices and the
+     * edges are decoded one by one. Files larger than 2GB are not supported.
+     *
+     * @param path        File written by {@link #save(Path, Codec, Codec)}
+     * @param vertexCodec Binary form of the vertices
+     * @param edgeCodec   Binary form of the edges
+     * @throws IOException if the file can not be read or is not a valid snapshot
+     */
+    public static <V, E> FrozenGraph<V, E> load(Path path, Codec<? extends V> vertexCodec,
+            Codec<? extends E> edgeCodec) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Graph snapshot is too large to be mapped: %s", path));
+            }
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException(String.format("Not a graph snapshot: %s", path));
+            }
+            boolean directed = buffer.getInt() != 0;
+            int n = buffer.getInt();
+            int m = buffer.getInt();
+            int adjacency = buffer.getInt();
+            // every count is checked against the file size before it is allocated
+            int[] outOffsets = readInts(buffer, Math.addExact(n, 1), path);
+            int[] outTargets = readInts(buffer, adjacency, path);
+            int[] outEdges = readInts(buffer, adjacency, path);
+            checkOffsets(outOffsets, adjacency, path);
+            checkIds(outTargets, n, path);
+            checkIds(outEdges, m, path);
+            int[] inOffsets = outOffsets;
+            int[] inSources = outTargets;
+            int[] inEdges = outEdges;
+            if (directed) {
+                if (adjacency != m) {
+                    throw corrupted(path);
+                }
+                inOffsets = readInts(buffer, n + 1, path);
+                inSources = readInts(buffer, m, path);
+                inEdges = readInts(buffer, m, path);
+                checkOffsets(inOffsets, m, path);
+                checkIds(inSources, n, path);
+                checkIds(inEdges, m, path);
+            } else if (m < 0 || m > adjacency) {
+                // every edge is kept by one or two vertices
+                throw corrupted(path);
+            }
+            Object[] vertices = new Object[n];
+            for (int v = 0; v < n; v++) {
+                vertices[v] = vertexCodec.read(buffer);
+            }
+            Object[] edges = new Object[m];
+            for (int e = 0; e < m; e++) {
+                edges[e] = edgeCodec.read(buffer);
+            }
+            return new FrozenGraph<>(directed, vertices, edges, outOffsets, outTargets, outEdges, inOffsets,
+                    inSources, inEdges);
+        } catch (BufferUnderflowException | IllegalArgumentException | ArithmeticException e) {
+            throw new IOException(String.format("Corrupted graph snapshot: %s", path), e);
+        }
+    }
+
+    /**
+     * Reads the ints if the buffer has enough of them.
+     */
+    private static int[] readInts(ByteBuffer buffer, int length, Path path) throws IOException {
+        if (length < 0 || Math.multiplyExact(length, 4) > buffer.remaining()) {
+            throw corrupted(path);
+        }
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * 4);
+        return values;
+    }
+
+    /**
+     * Checks that the offsets start with 0, do not decrease and end at the length
+     * of the adjacency arrays.
+     */
+    private static void checkOffsets(int[] offsets, int end, Path path) throws IOException {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != end) {
+            throw corrupted(path);
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw corrupted(path);
+            }
+        }
+    }
+
+    private static void checkIds(int[] ids, int count, Path path) throws IOException {
+        for (int id : ids) {
+            if (id < 0 || id >= count) {
+                throw corrupted(path);
+            }
+        }
+    }
+
+    private static IOException corrupted(Path path) {
+        return new IOException(String.format("Corrupted graph snapshot: %s", path));
+    }
+
+    private int bucket(Object v) {
+        int h = Objects.hashCode(v);
+        return (h ^ h >>> 16) & (index.length - 1);
+    }
+
+    private static void prefixSum(int[] offsets) {
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+
+    /**
+     * @return true if the graph keeps the direction of the edges
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return The number of edges
+     */
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * @return The id of the vertex or -1 if it is not in the graph
+     */
+    public int getVertexId(V v) {
+        for (int i = bucket(v); index[i] != 0; i = (i + 1) & (index.length - 1)) {
+            if (Objects.equals(vertices[index[i] - 1], v)) {
+                return index[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The vertex with the specified id
+     */
+    @SuppressWarnings("unchecked")
+    public V getVertex(int id) {
+        return (V) vertices[id];
+    }
+
+    /**
+     * @return The edge with the specified id
+     */
+    @SuppressWarnings("unchecked")
+    public E getEdge(int id) {
+        return (E) edges[id];
+    }
+
+    /**
+     * Always throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public boolean addVertex(V v) {
+        throw new UnsupportedOperationException("Frozen graph can not be modified");
+    }
+
+    /**
+     * Always throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public boolean addEdge(V src, V dst, E e) {
+        throw new UnsupportedOperationException("Frozen graph can not be modified");
+    }
+
+    /**
+     * Finds path between two vertices in depth first order. Returns null if path
+     * is not found.
+     */
+    @Override
+    public List<E> getPath(V v1, V v2) {
+        return getPath(v1, v2, PathStrategy.DEPTH_FIRST);
+    }
+
+    @Override
+    public List<E> getPath(V v1, V v2, PathStrategy strategy) {
+        int start = getVertexId(v1);
+        int target = getVertexId(v2);
+        if (start < 0 || target < 0) {
+            return null;
+        }
+        switch (strategy) {
+        case BREADTH_FIRST:
+            return toEdges(TopologySearch.breadthFirstPath(this, start, target));
+        case BIDIRECTIONAL:
+            return toEdges(TopologySearch.bidirectionalPath(this, start, target));
+        case DEPTH_FIRST:
+        default:
+            return toEdges(TopologySearch.depthFirstPath(this, start, target));
+        }
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost) {
+        return getShortestPath(v1, v2, cost, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost,
+            ToDoubleBiFunction<? super V, ? super V> heuristic) {
+        int start = getVertexId(v1);
+        int target = getVertexId(v2);
+        if (start < 0 || target < 0) {
+            return null;
+        }
+        return toEdges(TopologySearch.cheapestPath(this, start, target,
+                (v, slot) -> cost.applyAsDouble((E) edges[outEdges[outOffsets[v] + slot]]),
+                heuristic == null ? null
+                        : (v, t) -> heuristic.applyAsDouble((V) vertices[v], (V) vertices[t])));
+    }
+
+    /**
+     * Depth first implementation of traverse algorithm.
+     *
+     * @param start    Vertex to start with or random if it is not specified
+     * @param consumer User defined function to accept traversed vertices
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void traverse(V start, Consumer<? super V> consumer) {
+        if (vertices.length == 0) {
+            return;
+        }
+        int id = start == null ? 0 : getVertexId(start);
+        if (id < 0) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("Not existent vertex was specfied: %s", start));
+            }
+            return;
+        }
+        TopologySearch.depthFirst(this, id, v -> consumer.accept((V) vertices[v]));
+    }
+
+    /**
+     * Breadth first traversal expanding every level by parallel tasks. The
+     * consumer is called concurrently from the threads of the pool, once for every
+     * reachable vertex, so it should be thread safe.
+     *
+     * @param start    Vertex to start with or random if it is not specified
+     * @param consumer Thread safe function to accept traversed vertices
+     * @param pool     Pool to run the tasks
+     * @see ParallelTraversal
+     */
+    @SuppressWarnings("unchecked")
+    public void parallelTraverse(V start, Consumer<? super V> consumer, ForkJoinPool pool) {
+        if (vertices.length == 0) {
+            return;
+        }
+        int id = start == null ? 0 : getVertexId(start);
+        if (id < 0) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("Not existent vertex was specfied: %s", start));
+            }
+            return;
+        }
+        ParallelTraversal.breadthFirst(this, id, v -> consumer.accept((V) vertices[v]), pool);
+    }
+
+    /**
+     * Lazy depth first traversal in the order of {@link #traverse(Object, Consumer)}.
+     *
+     * @param start Vertex to start with or random if it is not specified
+     * @return Iterator computing the reachable vertices on demand
+     */
+    public Iterator<V> dfs(V start) {
+        int id = lazyStart(start);
+        if (id < 0) {
+            return Collections.emptyIterator();
+        }
+        return LazyTraversal.mapped(LazyTraversal.depthFirst(this, id), this::getVertex);
+    }
+
+    /**
+     * Lazy breadth first traversal.
+     *
+     * @param start Vertex to start with or random if it is not specified
+     * @return Iterator computing the reachable vertices on demand
+     */
+    public Iterator<V> bfs(V start) {
+        int id = lazyStart(start);
+        if (id < 0) {
+            return Collections.emptyIterator();
+        }
+        return LazyTraversal.mapped(LazyTraversal.breadthFirst(this, id), this::getVertex);
+    }
+
+    /**
+     * Stream of the reachable vertices computed on demand in breadth first order.
+     * The graph is immutable, so the stream may be safely made parallel, the
+     * order is lost then.
+     *
+     * @param start Vertex to start with or random if it is not specified
+     * @see LazyTraversal#spliterator(Topology, int)
+     */
+    public Stream<V> stream(V start) {
+        int id = lazyStart(start);
+        if (id < 0) {
+            return Stream.empty();
+        }
+        return StreamSupport.intStream(LazyTraversal.spliterator(this, id), false).mapToObj(this::getVertex);
+    }
+
+    /**
+     * @return The id of the start vertex or -1 if the traversal is empty
+     */
+    private int lazyStart(V start) {
+        if (vertices.length == 0) {
+            return -1;
+        }
+        int id = start == null ? 0 : getVertexId(start);
+        if (id < 0 && logger.isEnabledFor(Level.WARN)) {
+            logger.warn(String.format("Not existent vertex was specfied: %s", start));
+        }
+        return id;
+    }
+
+    private List<E> toEdges(long[] path) {
+        if (path == null) {
+            return null;
+        }
+        List<E> result = new ArrayList<>(path.length);
+        for (long edge : path) {
+            result.add(resolveEdge(edge));
+        }
+        return result;
+    }
+
+    /**
+     * @return The edge the reference points to
+     */
+    @SuppressWarnings("unchecked")
+    private E resolveEdge(long edge) {
+        int v = Topology.vertexOf(edge);
+        int slot = Topology.slotOf(edge);
+        return (E) edges[Topology.isIngoing(edge) ? inEdges[inOffsets[v] + slot] : outEdges[outOffsets[v] + slot]];
+    }
+
+    @Override
+    public int vertexCount() {
+        return vertices.length;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return outOffsets[v + 1] - outOffsets[v];
+    }
+
+    @Override
+    public int outTarget(int v, int slot) {
+        return outTargets[outOffsets[v] + slot];
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+
+    @Override
+    public int inSource(int v, int slot) {
+        return inSources[inOffsets[v] + slot];
+    }
+}
@@ -2,6 +2,8 @@ package com.natera.graph;
 
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Graph with specified by the user vertices and edges types.
@@ -38,6 +40,58 @@ public interface Graph<V, E> {
 	 */
 	List<E> getPath(V v1, V v2);
 
+	/**
+	 * Finds path between two vertices using the specified search strategy. By
+	 * default the strategy is ignored and the path is found by
+	 * {@link #getPath(Object, Object)}, so it may be not the shortest one.
+	 * 
+	 * @param v1       the vertex to start with
+	 * @param v2       the target vertex
+	 * @param strategy the way the graph is explored
+	 * @return List of edges between the specified vertices or null if there is no
+	 *         path
+	 * @see PathStrategy
+	 */
+	default List<E> getPath(V v1, V v2, PathStrategy strategy) {
+		return getPath(v1, v2);
+	}
+
+	/**
+	 * Finds path with the minimal total cost between two vertices (Dijkstra's
+	 * algorithm). By default it is the search guided by the null heuristic.
+	 * 
+	 * @param v1   the vertex to start with
+	 * @param v2   the target vertex
+	 * @param cost function returning non negative cost of the edge
+	 * @return List of edges between the specified vertices or null if there is no
+	 *         path
+	 */
+	default List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost) {
+		return getShortestPath(v1, v2, cost, null);
+	}
+
+	/**
+	 * Finds path with the minimal total cost between two vertices guided by the
+	 * heuristic (A* algorithm). The heuristic should never overestimate the cost
+	 * of the path between the vertices, otherwise the found path may be not the
+	 * cheapest one.
+	 * 
+	 * @param v1        the vertex to start with
+	 * @param v2        the target vertex
+	 * @param cost      function returning non negative cost of the edge
+	 * @param heuristic function estimating the cost of the path from the first
+	 *                  vertex to the second one or null
+	 * @return List of edges between the specified vertices or null if there is no
+	 *         path
+	 * @throws UnsupportedOperationException if the graph does not support the
+	 *                                       weighted searches, which is the
+	 *                                       default
+	 */
+	default List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost,
+			ToDoubleBiFunction<? super V, ? super V> heuristic) {
+		throw new UnsupportedOperationException("Weighted path search is not supported");
+	}
+
 	/**
 	 * Traverse through all of the graph vertices, passing them to the specified
 	 * consumer.
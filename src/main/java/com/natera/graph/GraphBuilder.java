@@ -0,0 +1,196 @@
+package com.natera.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.natera.graph.holders.EdgesHolder;
+
+/**
+ * Builder to load large graphs. Vertices and edges are checked and put into the
+ * pre-sized maps of the graph as they are added, while linking of the edge
+ * holders is postponed until {@link #build()}. The edges are grouped by their
+ * vertices then and the holders are filled by fork/join tasks, every task owns
+ * a range of vertices, so no holder is modified by two threads. Every holder
+ * gets its edges in the order of their addition, the same way as if they were
+ * added to the graph one by one.
+ * <p>
+ * The graph should not be used until it is built.
+ *
+ * @param <V> the vertex type
+ * @param <E> the edge type
+ */
+public class GraphBuilder<V, E> {
+    /**
+     * Minimal number of edges to be linked by a single task.
+     */
+    static final int TASK_SIZE = 1 << 14;
+
+    private final AbstractGraph<V, E> graph;
+    private final ForkJoinPool pool;
+    private Object[] edges;
+    private int[] sources;
+    private int[] targets;
+    private int size;
+
+    /**
+     * @param graph            The graph to be filled
+     * @param expectedVertices Expected number of vertices
+     * @param expectedEdges    Expected number of edges
+     * @param pool             Pool to run linking tasks
+     */
+    public GraphBuilder(AbstractGraph<V, E> graph, int expectedVertices, int expectedEdges, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+        graph.ensureCapacity(expectedVertices, expectedEdges);
+        int capacity = Math.max(expectedEdges, 16);
+        edges = new Object[capacity];
+        sources = new int[capacity];
+        targets = new int[capacity];
+    }
+
+    public GraphBuilder(AbstractGraph<V, E> graph, int expectedVertices, int expectedEdges) {
+        this(graph, expectedVertices, expectedEdges, ForkJoinPool.commonPool());
+    }
+
+    public static <V, E> GraphBuilder<V, E> directed(int expectedVertices, int expectedEdges) {
+        return new GraphBuilder<>(new DirectedGraph<V, E>(), expectedVertices, expectedEdges);
+    }
+
+    public static <V, E> GraphBuilder<V, E> undirected(int expectedVertices, int expectedEdges) {
+        return new GraphBuilder<>(new UndirectedGraph<V, E>(), expectedVertices, expectedEdges);
+    }
+
+    /**
+     * Adds the vertex, null and already added vertices are skipped.
+     */
+    public GraphBuilder<V, E> addVertex(V v) {
+        graph.addVertex(v);
+        return this;
+    }
+
+    /**
+     * Adds the edge between already added vertices. Edges which can not be added
+     * to the graph are skipped.
+     */
+    public GraphBuilder<V, E> addEdge(V src, V dst, E e) {
+        long ends = graph.registerEdge(src, dst, e);
+        if (ends < 0) {
+            return this;
+        }
+        if (size == edges.length) {
+            int capacity = size + (size >> 1);
+            edges = Arrays.copyOf(edges, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+        }
+        edges[size] = e;
+        sources[size] = (int) (ends >>> 32);
+        targets[size] = (int) ends;
+        size++;
+        return this;
+    }
+
+    /**
+     * Links the edge holders of all of the added edges.
+     *
+     * @return The built graph
+     */
+    public AbstractGraph<V, E> build() {
+        int n = graph.vertexCount();
+        if (graph.isDirected()) {
+            pool.invoke(new LinkTask(groupBy(sources, null, n), true, 0, n));
+            pool.invoke(new LinkTask(groupBy(targets, null, n), false, 0, n));
+        } else {
+            // undirected holders keep both ends in a single list, so both ends are
+            // linked by the same pass
+            pool.invoke(new LinkTask(groupBy(sources, targets, n), true, 0, n));
+        }
+        edges = new Object[0];
+        sources = new int[0];
+        targets = new int[0];
+        size = 0;
+        return graph;
+    }
+
+    /**
+     * Groups positions of the edges by the vertex with the counting sort, the
+     * positions of every group are ascending. Loops are put into the group once.
+     *
+     * @param vertices The vertex of every edge
+     * @param others   The second vertex of every edge or null to group by the
+     *                 first one only
+     * @return Offsets of the groups followed by the ordered positions
+     */
+    private int[][] groupBy(int[] vertices, int[] others, int n) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[vertices[i] + 1]++;
+            if (others != null && others[i] != vertices[i]) {
+                offsets[others[i] + 1]++;
+            }
+        }
+        for (int v = 1; v <= n; v++) {
+            offsets[v] += offsets[v - 1];
+        }
+        int[] positions = new int[offsets[n]];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < size; i++) {
+            positions[cursor[vertices[i]]++] = i;
+            if (others != null && others[i] != vertices[i]) {
+                positions[cursor[others[i]]++] = i;
+            }
+        }
+        return new int[][] { offsets, positions };
+    }
+
+    /**
+     * Links the edges of the vertices from the range to their holders. An edge is
+     * linked as outgoing to its source in the outgoing pass and as ingoing to any
+     * other vertex.
+     */
+    private class LinkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] offsets;
+        private final int[] positions;
+        private final boolean outgoing;
+        private final int from;
+        private final int to;
+
+        LinkTask(int[][] groups, boolean outgoing, int from, int to) {
+            this(groups[0], groups[1], outgoing, from, to);
+        }
+
+        LinkTask(int[] offsets, int[] positions, boolean outgoing, int from, int to) {
+            this.offsets = offsets;
+            this.positions = positions;
+            this.outgoing = outgoing;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (to - from > 1 && offsets[to] - offsets[from] > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LinkTask(offsets, positions, outgoing, from, middle),
+                        new LinkTask(offsets, positions, outgoing, middle, to));
+                return;
+            }
+            for (int v = from; v < to; v++) {
+                EdgesHolder<V, E> holder = graph.holder(v);
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    int position = positions[i];
+                    E e = (E) edges[position];
+                    if (outgoing && sources[position] == v) {
+                        holder.addOutgoingEdge(e, graph.holder(targets[position]));
+                    } else {
+                        holder.addIngoingEdge(e, graph.holder(sources[position]));
+                    }
+                }
+            }
+        }
+    }
+}
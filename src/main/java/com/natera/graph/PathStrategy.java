@@ -0,0 +1,27 @@
+package com.natera.graph;
+
+/**
+ * The way the graph is explored while searching a path between two vertices.
+ *
+ * @see Graph#getPath(Object, Object, PathStrategy)
+ */
+public enum PathStrategy {
+    /**
+     * Returns the first path found by the depth first search. The path is not
+     * necessarily the shortest one.
+     */
+    DEPTH_FIRST,
+
+    /**
+     * Returns a path with the minimal number of edges found by the breadth first
+     * search.
+     */
+    BREADTH_FIRST,
+
+    /**
+     * Returns a path with the minimal number of edges found by two breadth first
+     * searches started from both of the vertices. Usually visits far less
+     * vertices than {@link #BREADTH_FIRST} on large sparse graphs.
+     */
+    BIDIRECTIONAL
+}
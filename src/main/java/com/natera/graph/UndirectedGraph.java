@@ -1,13 +1,18 @@
 package com.natera.graph;
 
+import com.natera.graph.holders.CompactUndirectedEdgesHolder;
 import com.natera.graph.holders.EdgesHolder;
-import com.natera.graph.holders.UndirectedEdgesHolder;
 
 public class UndirectedGraph<V, E> extends AbstractGraph<V, E> {
 
     @Override
-    protected EdgesHolder<E> createEdgesHolder() {
-        return new UndirectedEdgesHolder<>();
+    public boolean isDirected() {
+        return false;
+    }
+
+    @Override
+    protected EdgesHolder<V, E> createEdgesHolder(V v, int id) {
+        return new CompactUndirectedEdgesHolder<>(v, id);
     }
 
 }
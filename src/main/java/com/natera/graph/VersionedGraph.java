@@ -0,0 +1,438 @@
+package com.natera.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.natera.graph.topology.Topology;
+import com.natera.graph.topology.TopologySearch;
+import com.natera.graph.util.PersistentArray;
+
+/**
+ * Thread safe graph keeping immutable versions of itself. Every modification
+ * creates a new version sharing everything but the changed vertices with the
+ * previous one and publishes it at once, so readers never see a half-applied
+ * update. Queries of the graph run on the version published when they were
+ * started and take no locks, writers are serialized between each other but
+ * never wait for readers.
+ * <p>
+ * Use {@link #snapshot()} to run several queries against the same version and
+ * {@link #update(Consumer)} to publish several changes as a single version.
+ *
+ * @param <V> the vertex type
+ * @param <E> the edge type
+ */
+public class VersionedGraph<V, E> implements Graph<V, E> {
+    final static Logger logger = Logger.getLogger(VersionedGraph.class);
+
+    private final boolean directed;
+    /**
+     * Ids of the vertices of all of the versions. Ids are never reused, so a
+     * version sees only the ids below its vertex count.
+     */
+    private final ConcurrentHashMap<V, Integer> ids = new ConcurrentHashMap<>();
+    private final Set<E> edges = new HashSet<>();
+    private final Object writeLock = new Object();
+    private volatile Snapshot<V, E> current;
+
+    public VersionedGraph(boolean directed) {
+        this.directed = directed;
+        current = new Snapshot<>(directed, ids, PersistentArray.<Adjacency> empty(), 0, 0);
+    }
+
+    /**
+     * Modifications of the graph applied together.
+     *
+     * @param <V> the vertex type
+     * @param <E> the edge type
+     */
+    public interface Changes<V, E> {
+        /**
+         * @see Graph#addVertex(Object)
+         */
+        boolean addVertex(V v);
+
+        /**
+         * @see Graph#addEdge(Object, Object, Object)
+         */
+        boolean addEdge(V src, V dst, E e);
+    }
+
+    /**
+     * @return The latest published version of the graph
+     */
+    public Snapshot<V, E> snapshot() {
+        return current;
+    }
+
+    /**
+     * Applies the changes and publishes them as a single version. If the
+     * changes throw an exception nothing is published.
+     */
+    public void update(Consumer<? super Changes<V, E>> changes) {
+        synchronized (writeLock) {
+            Draft draft = new Draft(current);
+            try {
+                changes.accept(draft);
+            } catch (RuntimeException | Error e) {
+                draft.rollback();
+                throw e;
+            }
+            current = draft.toSnapshot();
+        }
+    }
+
+    @Override
+    public boolean addVertex(V v) {
+        boolean[] added = new boolean[1];
+        update(changes -> added[0] = changes.addVertex(v));
+        return added[0];
+    }
+
+    @Override
+    public boolean addEdge(V src, V dst, E e) {
+        boolean[] added = new boolean[1];
+        update(changes -> added[0] = changes.addEdge(src, dst, e));
+        return added[0];
+    }
+
+    @Override
+    public List<E> getPath(V v1, V v2) {
+        return current.getPath(v1, v2);
+    }
+
+    @Override
+    public List<E> getPath(V v1, V v2, PathStrategy strategy) {
+        return current.getPath(v1, v2, strategy);
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost) {
+        return current.getShortestPath(v1, v2, cost);
+    }
+
+    @Override
+    public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost,
+            ToDoubleBiFunction<? super V, ? super V> heuristic) {
+        return current.getShortestPath(v1, v2, cost, heuristic);
+    }
+
+    @Override
+    public void traverse(V start, Consumer<? super V> consumer) {
+        current.traverse(start, consumer);
+    }
+
+    /**
+     * The version being built by the writer. Vertices and edges are registered
+     * in the shared collections right away and removed back on rollback.
+     */
+    private class Draft implements Changes<V, E> {
+        private PersistentArray<Adjacency> adjacency;
+        private int edgeCount;
+        private final List<V> addedVertices = new ArrayList<>();
+        private final List<E> addedEdges = new ArrayList<>();
+
+        Draft(Snapshot<V, E> base) {
+            adjacency = base.adjacency;
+            edgeCount = base.edgeCount;
+        }
+
+        @Override
+        public boolean addVertex(V v) {
+            if (v == null) {
+                return false;
+            }
+            if (ids.putIfAbsent(v, adjacency.size()) != null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Vertex is already in the graph: %s", v));
+                }
+                return false;
+            }
+            addedVertices.add(v);
+            adjacency = adjacency.append(new Adjacency(v, directed));
+            return true;
+        }
+
+        @Override
+        public boolean addEdge(V src, V dst, E e) {
+            if (e == null) {
+                return false;
+            }
+            if (edges.contains(e)) {
+                if (logger.isEnabledFor(Level.WARN)) {
+                    logger.warn(String.format("An attempt to add already inserted edge \"%s\"", e));
+                }
+                return false;
+            }
+            Integer srcId = src == null ? null : ids.get(src);
+            Integer dstId = dst == null ? null : ids.get(dst);
+            if (srcId == null || dstId == null) {
+                if (logger.isEnabledFor(Level.WARN)) {
+                    logger.warn(String.format("An attempt to add edge \"%s\" to a not existent vertex", e));
+                }
+                return false;
+            }
+            edges.add(e);
+            addedEdges.add(e);
+            adjacency = adjacency.set(srcId, adjacency.get(srcId).addOutgoing(e, dstId));
+            if (directed) {
+                adjacency = adjacency.set(dstId, adjacency.get(dstId).addIngoing(e, srcId));
+            } else if (!srcId.equals(dstId)) {
+                // loops are kept once the same way as edge holders do
+                adjacency = adjacency.set(dstId, adjacency.get(dstId).addOutgoing(e, srcId));
+            }
+            edgeCount++;
+            return true;
+        }
+
+        void rollback() {
+            addedVertices.forEach(ids::remove);
+            edges.removeAll(addedEdges);
+        }
+
+        Snapshot<V, E> toSnapshot() {
+            return new Snapshot<>(directed, ids, adjacency, adjacency.size(), edgeCount);
+        }
+    }
+
+    /**
+     * Immutable edges of a vertex. The arrays are shared between the versions:
+     * a newer version may fill the positions past the degrees of the older one,
+     * which never reads them. Only the latest version is extended, the arrays are
+     * copied when they are full.
+     */
+    static final class Adjacency {
+        final Object vertex;
+        final int[] outTargets;
+        final Object[] outEdges;
+        final int outDegree;
+        final int[] inSources;
+        final Object[] inEdges;
+        final int inDegree;
+
+        Adjacency(Object vertex, boolean directed) {
+            this(vertex, new int[0], new Object[0], 0, directed ? new int[0] : null, null, 0);
+        }
+
+        private Adjacency(Object vertex, int[] outTargets, Object[] outEdges, int outDegree, int[] inSources,
+                Object[] inEdges, int inDegree) {
+            this.vertex = vertex;
+            this.outTargets = outTargets;
+            this.outEdges = outEdges;
+            this.outDegree = outDegree;
+            this.inSources = inSources;
+            this.inEdges = inEdges;
+            this.inDegree = inDegree;
+        }
+
+        Adjacency addOutgoing(Object edge, int target) {
+            int[] targets = outTargets;
+            Object[] edges = outEdges;
+            if (outDegree == targets.length) {
+                int capacity = Math.max(2, outDegree << 1);
+                targets = Arrays.copyOf(targets, capacity);
+                edges = Arrays.copyOf(edges, capacity);
+            }
+            targets[outDegree] = target;
+            edges[outDegree] = edge;
+            return new Adjacency(vertex, targets, edges, outDegree + 1, inSources, inEdges, inDegree);
+        }
+
+        Adjacency addIngoing(Object edge, int source) {
+            int[] sources = inSources;
+            Object[] edges = inEdges == null ? new Object[0] : inEdges;
+            if (inDegree == sources.length) {
+                int capacity = Math.max(2, inDegree << 1);
+                sources = Arrays.copyOf(sources, capacity);
+                edges = Arrays.copyOf(edges, capacity);
+            }
+            sources[inDegree] = source;
+            edges[inDegree] = edge;
+            return new Adjacency(vertex, outTargets, outEdges, outDegree, sources, edges, inDegree + 1);
+        }
+    }
+
+    /**
+     * Consistent read only version of the graph. Any attempt to modify it throws
+     * {@link UnsupportedOperationException}.
+     *
+     * @param <V> the vertex type
+     * @param <E> the edge type
+     */
+    public static final class Snapshot<V, E> implements Graph<V, E>, Topology {
+        private final boolean directed;
+        private final ConcurrentHashMap<V, Integer> ids;
+        private final PersistentArray<Adjacency> adjacency;
+        private final int vertexCount;
+        private final int edgeCount;
+
+        Snapshot(boolean directed, ConcurrentHashMap<V, Integer> ids, PersistentArray<Adjacency> adjacency,
+                int vertexCount, int edgeCount) {
+            this.directed = directed;
+            this.ids = ids;
+            this.adjacency = adjacency;
+            this.vertexCount = vertexCount;
+            this.edgeCount = edgeCount;
+        }
+
+        /**
+         * @return true if the graph keeps the direction of the edges
+         */
+        public boolean isDirected() {
+            return directed;
+        }
+
+        /**
+         * @return The number of edges
+         */
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * @return The id of the vertex or -1 if it is not in this version
+         */
+        public int getVertexId(V v) {
+            Integer id = v == null ? null : ids.get(v);
+            return id == null || id >= vertexCount ? -1 : id;
+        }
+
+        /**
+         * @return The vertex with the specified id
+         */
+        @SuppressWarnings("unchecked")
+        public V getVertex(int id) {
+            return (V) adjacency.get(id).vertex;
+        }
+
+        /**
+         * Always throws {@link UnsupportedOperationException}.
+         */
+        @Override
+        public boolean addVertex(V v) {
+            throw new UnsupportedOperationException("Snapshot can not be modified");
+        }
+
+        /**
+         * Always throws {@link UnsupportedOperationException}.
+         */
+        @Override
+        public boolean addEdge(V src, V dst, E e) {
+            throw new UnsupportedOperationException("Snapshot can not be modified");
+        }
+
+        @Override
+        public List<E> getPath(V v1, V v2) {
+            return getPath(v1, v2, PathStrategy.DEPTH_FIRST);
+        }
+
+        @Override
+        public List<E> getPath(V v1, V v2, PathStrategy strategy) {
+            int start = getVertexId(v1);
+            int target = getVertexId(v2);
+            if (start < 0 || target < 0) {
+                return null;
+            }
+            switch (strategy) {
+            case BREADTH_FIRST:
+                return toEdges(TopologySearch.breadthFirstPath(this, start, target));
+            case BIDIRECTIONAL:
+                return toEdges(TopologySearch.bidirectionalPath(this, start, target));
+            case DEPTH_FIRST:
+            default:
+                return toEdges(TopologySearch.depthFirstPath(this, start, target));
+            }
+        }
+
+        @Override
+        public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost) {
+            return getShortestPath(v1, v2, cost, null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<E> getShortestPath(V v1, V v2, ToDoubleFunction<? super E> cost,
+                ToDoubleBiFunction<? super V, ? super V> heuristic) {
+            int start = getVertexId(v1);
+            int target = getVertexId(v2);
+            if (start < 0 || target < 0) {
+                return null;
+            }
+            return toEdges(TopologySearch.cheapestPath(this, start, target,
+                    (v, slot) -> cost.applyAsDouble((E) adjacency.get(v).outEdges[slot]),
+                    heuristic == null ? null : (v, t) -> heuristic.applyAsDouble(getVertex(v), getVertex(t))));
+        }
+
+        /**
+         * Depth first implementation of traverse algorithm.
+         *
+         * @param start    Vertex to start with or random if it is not specified
+         * @param consumer User defined function to accept traversed vertices
+         */
+        @Override
+        public void traverse(V start, Consumer<? super V> consumer) {
+            if (vertexCount == 0) {
+                return;
+            }
+            int id = start == null ? 0 : getVertexId(start);
+            if (id < 0) {
+                if (logger.isEnabledFor(Level.WARN)) {
+                    logger.warn(String.format("Not existent vertex was specfied: %s", start));
+                }
+                return;
+            }
+            TopologySearch.depthFirst(this, id, v -> consumer.accept(getVertex(v)));
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<E> toEdges(long[] path) {
+            if (path == null) {
+                return null;
+            }
+            List<E> result = new ArrayList<>(path.length);
+            for (long edge : path) {
+                Adjacency vertexEdges = adjacency.get(Topology.vertexOf(edge));
+                int slot = Topology.slotOf(edge);
+                result.add((E) (Topology.isIngoing(edge) && directed ? vertexEdges.inEdges[slot]
+                        : vertexEdges.outEdges[slot]));
+            }
+            return result;
+        }
+
+        @Override
+        public int vertexCount() {
+            return vertexCount;
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return adjacency.get(v).outDegree;
+        }
+
+        @Override
+        public int outTarget(int v, int slot) {
+            return adjacency.get(v).outTargets[slot];
+        }
+
+        @Override
+        public int inDegree(int v) {
+            Adjacency vertexEdges = adjacency.get(v);
+            return directed ? vertexEdges.inDegree : vertexEdges.outDegree;
+        }
+
+        @Override
+        public int inSource(int v, int slot) {
+            Adjacency vertexEdges = adjacency.get(v);
+            return directed ? vertexEdges.inSources[slot] : vertexEdges.outTargets[slot];
+        }
+    }
+}
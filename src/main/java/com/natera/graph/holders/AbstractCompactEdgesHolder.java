@@ -0,0 +1,77 @@
+package com.natera.graph.holders;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Base class of the holders keeping edges in their own fields.
+ *
+ * @param <V> The vertex type
+ * @param <E> The edge type
+ * @see CompactEdges
+ */
+abstract class AbstractCompactEdgesHolder<V, E> implements EdgesHolder<V, E> {
+    protected final V vertex;
+    protected final int id;
+
+    protected AbstractCompactEdgesHolder(V vertex, int id) {
+        this.vertex = vertex;
+        this.id = id;
+    }
+
+    @Override
+    public V getVertex() {
+        return vertex;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    protected abstract boolean containsIngoingEdge(Object e);
+
+    protected abstract boolean containsOutgoingEdge(Object e);
+
+    /**
+     * Read only view of ingoing or outgoing edges of the holder.
+     */
+    protected class EdgeSet extends AbstractSet<E> {
+        private final boolean outgoing;
+
+        protected EdgeSet(boolean outgoing) {
+            this.outgoing = outgoing;
+        }
+
+        @Override
+        public int size() {
+            return outgoing ? getOutgoingDegree() : getIngoingDegree();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return outgoing ? containsOutgoingEdge(o) : containsIngoingEdge(o);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int slot;
+
+                @Override
+                public boolean hasNext() {
+                    return slot < size();
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return outgoing ? getOutgoingEdge(slot++) : getIngoingEdge(slot++);
+                }
+            };
+        }
+    }
+}
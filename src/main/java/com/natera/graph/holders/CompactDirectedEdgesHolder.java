@@ -0,0 +1,95 @@
+package com.natera.graph.holders;
+
+import java.util.Set;
+
+/**
+ * This holder keeps ingoing and outgoing edges separately in its own fields:
+ * inline for a single edge, in a small array for a few of them and with an
+ * additional hash index for high degree vertices.
+ *
+ * @param <V> The vertex type
+ * @param <E> The edge type
+ * @see CompactEdges
+ */
+public class CompactDirectedEdgesHolder<V, E> extends AbstractCompactEdgesHolder<V, E> {
+    private Object inEdges;
+    private Object inExtra;
+    private int inDegree;
+    private Object outEdges;
+    private Object outExtra;
+    private int outDegree;
+
+    public CompactDirectedEdgesHolder(V vertex, int id) {
+        super(vertex, id);
+    }
+
+    @Override
+    public void addIngoingEdge(E e, EdgesHolder<V, E> source) {
+        Object storage = CompactEdges.appendStorage(inEdges, inExtra, inDegree, e, source);
+        inExtra = CompactEdges.appendExtra(storage, inExtra, inDegree, e, source);
+        inEdges = storage;
+        inDegree++;
+    }
+
+    @Override
+    public void addOutgoingEdge(E e, EdgesHolder<V, E> target) {
+        Object storage = CompactEdges.appendStorage(outEdges, outExtra, outDegree, e, target);
+        outExtra = CompactEdges.appendExtra(storage, outExtra, outDegree, e, target);
+        outEdges = storage;
+        outDegree++;
+    }
+
+    @Override
+    public int getIngoingDegree() {
+        return inDegree;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E getIngoingEdge(int slot) {
+        return (E) CompactEdges.edge(inEdges, inDegree, slot);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public EdgesHolder<V, E> getIngoingNeighbor(int slot) {
+        return (EdgesHolder<V, E>) CompactEdges.neighbor(inEdges, inExtra, inDegree, slot);
+    }
+
+    @Override
+    public int getOutgoingDegree() {
+        return outDegree;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E getOutgoingEdge(int slot) {
+        return (E) CompactEdges.edge(outEdges, outDegree, slot);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public EdgesHolder<V, E> getOutgoingNeighbor(int slot) {
+        return (EdgesHolder<V, E>) CompactEdges.neighbor(outEdges, outExtra, outDegree, slot);
+    }
+
+    @Override
+    public Set<E> getIngoingEdges() {
+        return new EdgeSet(false);
+    }
+
+    @Override
+    public Set<E> getOutgoingEdges() {
+        return new EdgeSet(true);
+    }
+
+    @Override
+    protected boolean containsIngoingEdge(Object e) {
+        return CompactEdges.contains(inEdges, inExtra, inDegree, e);
+    }
+
+    @Override
+    protected boolean containsOutgoingEdge(Object e) {
+        return CompactEdges.contains(outEdges, outExtra, outDegree, e);
+    }
+}
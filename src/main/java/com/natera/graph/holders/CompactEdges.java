@@ -0,0 +1,99 @@
+package com.natera.graph.holders;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Storage scheme shared by the compact edge holders. A list of edges is kept in
+ * the holder fields without any container object:
+ * <ul>
+ * <li>no edges - both fields are null</li>
+ * <li>one edge - the first field is the edge, the second one is the holder of
+ * the adjacent vertex</li>
+ * <li>more edges - the first field is an array with edges and adjacent holders
+ * interleaved, the second one is null until the degree exceeds
+ * {@link #INDEX_THRESHOLD}, then it is the hash set of the edges used for
+ * membership checks</li>
+ * </ul>
+ * Arrays grow by a single entry while the list is short, so low degree vertices
+ * do not waste memory on spare capacity.
+ */
+final class CompactEdges {
+    /**
+     * The degree since which edges are indexed by a hash set.
+     */
+    static final int INDEX_THRESHOLD = 8;
+
+    private CompactEdges() {
+    }
+
+    static Object edge(Object storage, int degree, int slot) {
+        if (degree == 1) {
+            return storage;
+        }
+        return ((Object[]) storage)[slot << 1];
+    }
+
+    static Object neighbor(Object storage, Object extra, int degree, int slot) {
+        if (degree == 1) {
+            return extra;
+        }
+        return ((Object[]) storage)[(slot << 1) + 1];
+    }
+
+    /**
+     * @return The new value of the first field after the edge is appended
+     */
+    static Object appendStorage(Object storage, Object extra, int degree, Object e, Object neighbor) {
+        if (degree == 0) {
+            return e;
+        }
+        if (degree == 1) {
+            return new Object[] { storage, extra, e, neighbor };
+        }
+        Object[] array = (Object[]) storage;
+        int length = degree << 1;
+        if (length == array.length) {
+            int capacity = degree < INDEX_THRESHOLD ? degree + 1 : degree + (degree >> 1);
+            array = Arrays.copyOf(array, capacity << 1);
+        }
+        array[length] = e;
+        array[length + 1] = neighbor;
+        return array;
+    }
+
+    /**
+     * @return The new value of the second field after the edge is appended
+     */
+    static Object appendExtra(Object storage, Object extra, int degree, Object e, Object neighbor) {
+        if (degree == 0) {
+            return neighbor;
+        }
+        if (degree + 1 <= INDEX_THRESHOLD) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Object> index = (Set<Object>) extra;
+        if (index == null) {
+            index = new HashSet<>(degree << 1);
+            for (int slot = 0; slot < degree; slot++) {
+                index.add(edge(storage, degree, slot));
+            }
+        }
+        index.add(e);
+        return index;
+    }
+
+    static boolean contains(Object storage, Object extra, int degree, Object e) {
+        if (degree > INDEX_THRESHOLD) {
+            return ((Set<?>) extra).contains(e);
+        }
+        for (int slot = 0; slot < degree; slot++) {
+            if (edge(storage, degree, slot).equals(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
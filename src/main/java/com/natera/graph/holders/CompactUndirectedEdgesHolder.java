@@ -0,0 +1,93 @@
+package com.natera.graph.holders;
+
+import java.util.Set;
+
+/**
+ * This holder keeps both ingoing and outgoing edges in its own fields: inline
+ * for a single edge, in a small array for a few of them and with an additional
+ * hash index for high degree vertices.
+ *
+ * @param <V> The vertex type
+ * @param <E> The edge type
+ * @see CompactEdges
+ */
+public class CompactUndirectedEdgesHolder<V, E> extends AbstractCompactEdgesHolder<V, E> {
+    private Object edges;
+    private Object extra;
+    private int degree;
+
+    public CompactUndirectedEdgesHolder(V vertex, int id) {
+        super(vertex, id);
+    }
+
+    /**
+     * Adds the edge unless it is a loop, loops are kept once being added as
+     * outgoing edges.
+     */
+    @Override
+    public void addIngoingEdge(E e, EdgesHolder<V, E> source) {
+        if (source != this) {
+            addOutgoingEdge(e, source);
+        }
+    }
+
+    @Override
+    public void addOutgoingEdge(E e, EdgesHolder<V, E> target) {
+        Object storage = CompactEdges.appendStorage(edges, extra, degree, e, target);
+        extra = CompactEdges.appendExtra(storage, extra, degree, e, target);
+        edges = storage;
+        degree++;
+    }
+
+    @Override
+    public int getIngoingDegree() {
+        return degree;
+    }
+
+    @Override
+    public E getIngoingEdge(int slot) {
+        return getOutgoingEdge(slot);
+    }
+
+    @Override
+    public EdgesHolder<V, E> getIngoingNeighbor(int slot) {
+        return getOutgoingNeighbor(slot);
+    }
+
+    @Override
+    public int getOutgoingDegree() {
+        return degree;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E getOutgoingEdge(int slot) {
+        return (E) CompactEdges.edge(edges, degree, slot);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public EdgesHolder<V, E> getOutgoingNeighbor(int slot) {
+        return (EdgesHolder<V, E>) CompactEdges.neighbor(edges, extra, degree, slot);
+    }
+
+    @Override
+    public Set<E> getIngoingEdges() {
+        return new EdgeSet(true);
+    }
+
+    @Override
+    public Set<E> getOutgoingEdges() {
+        return new EdgeSet(true);
+    }
+
+    @Override
+    protected boolean containsIngoingEdge(Object e) {
+        return containsOutgoingEdge(e);
+    }
+
+    @Override
+    protected boolean containsOutgoingEdge(Object e) {
+        return CompactEdges.contains(edges, extra, degree, e);
+    }
+}
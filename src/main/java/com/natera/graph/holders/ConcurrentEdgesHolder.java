@@ -0,0 +1,156 @@
+package com.natera.graph.holders;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Thread safe holder to be shared by writers and readers. Edges are appended
+ * under the monitor of the holder, so writers block each other only if they
+ * touch the same vertex. Readers take no locks: the edges are kept in an
+ * immutable snapshot published through a volatile field. The snapshot shares
+ * the array with the newer ones and only sees the positions written before it
+ * was published, the array is copied when it is full.
+ * <p>
+ * Undirected holders keep both ingoing and outgoing edges in the same list.
+ *
+ * @param <V> The vertex type
+ * @param <E> The edge type
+ */
+public class ConcurrentEdgesHolder<V, E> extends AbstractCompactEdgesHolder<V, E> {
+    private static final Snapshot EMPTY = new Snapshot(new Object[0], 0);
+
+    private final boolean directed;
+    private volatile Snapshot outEdges = EMPTY;
+    private volatile Snapshot inEdges = EMPTY;
+    private final Set<E> ingoingView = new EdgeSet(false);
+    private final Set<E> outgoingView = new EdgeSet(true);
+
+    public ConcurrentEdgesHolder(V vertex, int id, boolean directed) {
+        super(vertex, id);
+        this.directed = directed;
+    }
+
+    @Override
+    public synchronized void addOutgoingEdge(E e, EdgesHolder<V, E> target) {
+        outEdges = outEdges.append(e, target);
+    }
+
+    /**
+     * Undirected holders skip loops, they are kept once being added as outgoing
+     * edges.
+     */
+    @Override
+    public synchronized void addIngoingEdge(E e, EdgesHolder<V, E> source) {
+        if (directed) {
+            inEdges = inEdges.append(e, source);
+        } else if (source != this) {
+            outEdges = outEdges.append(e, source);
+        }
+    }
+
+    @Override
+    public int getIngoingDegree() {
+        return ingoing().size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E getIngoingEdge(int slot) {
+        return (E) ingoing().edge(slot);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public EdgesHolder<V, E> getIngoingNeighbor(int slot) {
+        return (EdgesHolder<V, E>) ingoing().neighbor(slot);
+    }
+
+    @Override
+    public int getOutgoingDegree() {
+        return outEdges.size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E getOutgoingEdge(int slot) {
+        return (E) outEdges.edge(slot);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public EdgesHolder<V, E> getOutgoingNeighbor(int slot) {
+        return (EdgesHolder<V, E>) outEdges.neighbor(slot);
+    }
+
+    @Override
+    public Set<E> getIngoingEdges() {
+        return ingoingView;
+    }
+
+    @Override
+    public Set<E> getOutgoingEdges() {
+        return outgoingView;
+    }
+
+    @Override
+    protected boolean containsIngoingEdge(Object e) {
+        return ingoing().contains(e);
+    }
+
+    @Override
+    protected boolean containsOutgoingEdge(Object e) {
+        return outEdges.contains(e);
+    }
+
+    private Snapshot ingoing() {
+        return directed ? inEdges : outEdges;
+    }
+
+    /**
+     * Immutable view of the first edges of the array. Edges and neighbors are
+     * interleaved.
+     */
+    private static final class Snapshot {
+        final Object[] items;
+        final int size;
+
+        Snapshot(Object[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        Snapshot append(Object edge, Object neighbor) {
+            int position = size << 1;
+            Object[] array = items;
+            if (position == array.length) {
+                array = Arrays.copyOf(array, Math.max(4, position << 1));
+            }
+            array[position] = edge;
+            array[position + 1] = neighbor;
+            return new Snapshot(array, size + 1);
+        }
+
+        Object edge(int slot) {
+            if (slot >= size) {
+                throw new IndexOutOfBoundsException(String.valueOf(slot));
+            }
+            return items[slot << 1];
+        }
+
+        Object neighbor(int slot) {
+            if (slot >= size) {
+                throw new IndexOutOfBoundsException(String.valueOf(slot));
+            }
+            return items[(slot << 1) + 1];
+        }
+
+        boolean contains(Object e) {
+            for (int i = 0; i < size << 1; i += 2) {
+                if (items[i].equals(e)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
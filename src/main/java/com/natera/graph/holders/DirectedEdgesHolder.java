@@ -1,25 +1,72 @@
 package com.natera.graph.holders;
 
-import java.util.HashSet;
 import java.util.Set;
 
 /**
  * This holder keeps ingoing and outgoing edges separately.
  *
+ * @param <V> The vertex type
  * @param <E> The edge type
  */
-public class DirectedEdgesHolder<E> implements EdgesHolder<E> {
-    private Set<E> inEdges = new HashSet<>();
-    private Set<E> outEdges = new HashSet<>();
+public class DirectedEdgesHolder<V, E> implements EdgesHolder<V, E> {
+    private final V vertex;
+    private final int id;
+    private final EdgeList<V, E> inEdges = new EdgeList<>();
+    private final EdgeList<V, E> outEdges = new EdgeList<>();
+
+    public DirectedEdgesHolder(V vertex, int id) {
+        this.vertex = vertex;
+        this.id = id;
+    }
+
+    @Override
+    public V getVertex() {
+        return vertex;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public void addOutgoingEdge(E e, EdgesHolder<V, E> target) {
+        outEdges.add(e, target);
+    }
+
+    @Override
+    public void addIngoingEdge(E e, EdgesHolder<V, E> source) {
+        inEdges.add(e, source);
+    }
+
+    @Override
+    public int getIngoingDegree() {
+        return inEdges.size();
+    }
+
+    @Override
+    public E getIngoingEdge(int slot) {
+        return inEdges.edge(slot);
+    }
+
+    @Override
+    public EdgesHolder<V, E> getIngoingNeighbor(int slot) {
+        return inEdges.neighbor(slot);
+    }
+
+    @Override
+    public int getOutgoingDegree() {
+        return outEdges.size();
+    }
 
     @Override
-    public void addOutgoingEdge(E e) {
-        outEdges.add(e);
+    public E getOutgoingEdge(int slot) {
+        return outEdges.edge(slot);
     }
 
     @Override
-    public void addIngoingEdge(E e) {
-        inEdges.add(e);
+    public EdgesHolder<V, E> getOutgoingNeighbor(int slot) {
+        return outEdges.neighbor(slot);
     }
 
     @Override
@@ -0,0 +1,78 @@
+package com.natera.graph.holders;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Growable list of edges with the holders of their adjacent vertices kept in
+ * the parallel array. Edge uniqueness is guaranteed by the graph, so the list
+ * does not check it. The {@link java.util.Set} interface is read only.
+ *
+ * @param <V> The vertex type
+ * @param <E> The edge type
+ */
+class EdgeList<V, E> extends AbstractSet<E> {
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] edges = EMPTY;
+    private Object[] neighbors = EMPTY;
+    private int size;
+
+    void add(E e, EdgesHolder<V, E> neighbor) {
+        if (size == edges.length) {
+            int capacity = Math.max(2, size << 1);
+            edges = Arrays.copyOf(edges, capacity);
+            neighbors = Arrays.copyOf(neighbors, capacity);
+        }
+        edges[size] = e;
+        neighbors[size] = neighbor;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    E edge(int slot) {
+        return (E) edges[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    EdgesHolder<V, E> neighbor(int slot) {
+        return (EdgesHolder<V, E>) neighbors[slot];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (edges[i].equals(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int slot;
+
+            @Override
+            public boolean hasNext() {
+                return slot < size;
+            }
+
+            @Override
+            public E next() {
+                if (slot >= size) {
+                    throw new NoSuchElementException();
+                }
+                return edge(slot++);
+            }
+        };
+    }
+}
@@ -3,14 +3,55 @@ package com.natera.graph.holders;
 import java.util.Set;
 
 /**
- * Abstraction to specify common behavior of edge holders.
+ * Abstraction to specify common behavior of edge holders. The holder belongs to
+ * a single vertex and keeps the adjacent vertex of every edge next to the edge
+ * itself, given by its holder. Edges are addressed by slots, positions from 0
+ * to the degree of the vertex minus one, so walking through the graph needs no
+ * lookups of the edges.
  *
+ * @param <V> The vertex type
  * @param <E> The edge type
  */
-public interface EdgesHolder<E> {
-    void addIngoingEdge(E e);
+public interface EdgesHolder<V, E> {
+    /**
+     * @return The vertex the holder belongs to
+     */
+    V getVertex();
 
-    void addOutgoingEdge(E e);
+    /**
+     * @return Dense id of the vertex given by the graph
+     */
+    int getId();
+
+    /**
+     * @param e      Ingoing edge
+     * @param source Holder of the vertex the edge comes from
+     */
+    void addIngoingEdge(E e, EdgesHolder<V, E> source);
+
+    /**
+     * @param e      Outgoing edge
+     * @param target Holder of the vertex the edge leads to
+     */
+    void addOutgoingEdge(E e, EdgesHolder<V, E> target);
+
+    int getIngoingDegree();
+
+    E getIngoingEdge(int slot);
+
+    /**
+     * @return Holder of the vertex the ingoing edge in the slot comes from
+     */
+    EdgesHolder<V, E> getIngoingNeighbor(int slot);
+
+    int getOutgoingDegree();
+
+    E getOutgoingEdge(int slot);
+
+    /**
+     * @return Holder of the vertex the outgoing edge in the slot leads to
+     */
+    EdgesHolder<V, E> getOutgoingNeighbor(int slot);
 
     Set<E> getIngoingEdges();
 
@@ -1,24 +1,77 @@
 package com.natera.graph.holders;
 
-import java.util.HashSet;
 import java.util.Set;
 
 /**
  * This holder keeps both ingoing and outgoing edges in the same collection.
  *
+ * @param <V> The vertex type
  * @param <E> The edge type
  */
-public class UndirectedEdgesHolder<E> implements EdgesHolder<E> {
-    private Set<E> edges = new HashSet<>();
+public class UndirectedEdgesHolder<V, E> implements EdgesHolder<V, E> {
+    private final V vertex;
+    private final int id;
+    private final EdgeList<V, E> edges = new EdgeList<>();
+
+    public UndirectedEdgesHolder(V vertex, int id) {
+        this.vertex = vertex;
+        this.id = id;
+    }
+
+    @Override
+    public V getVertex() {
+        return vertex;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public void addOutgoingEdge(E e, EdgesHolder<V, E> target) {
+        edges.add(e, target);
+    }
+
+    /**
+     * Adds the edge unless it is a loop, loops are kept once being added as
+     * outgoing edges.
+     */
+    @Override
+    public void addIngoingEdge(E e, EdgesHolder<V, E> source) {
+        if (source != this) {
+            edges.add(e, source);
+        }
+    }
+
+    @Override
+    public int getIngoingDegree() {
+        return edges.size();
+    }
+
+    @Override
+    public E getIngoingEdge(int slot) {
+        return edges.edge(slot);
+    }
+
+    @Override
+    public EdgesHolder<V, E> getIngoingNeighbor(int slot) {
+        return edges.neighbor(slot);
+    }
+
+    @Override
+    public int getOutgoingDegree() {
+        return edges.size();
+    }
 
     @Override
-    public void addOutgoingEdge(E e) {
-        edges.add(e);
+    public E getOutgoingEdge(int slot) {
+        return edges.edge(slot);
     }
 
     @Override
-    public void addIngoingEdge(E e) {
-        edges.add(e);
+    public EdgesHolder<V, E> getOutgoingNeighbor(int slot) {
+        return edges.neighbor(slot);
     }
 
     @Override
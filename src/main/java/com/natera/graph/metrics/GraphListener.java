@@ -0,0 +1,41 @@
+package com.natera.graph.metrics;
+
+/**
+ * Receives the measurements of the graph operations. Methods are called
+ * synchronously from the threads running the operations, so they should be
+ * fast and thread safe. Graphs without a listener do not measure anything.
+ *
+ * @see GraphMetrics
+ */
+public interface GraphListener {
+
+    /**
+     * Called when an operation is completed.
+     *
+     * @param operation       The completed operation
+     * @param nanos           Time taken by the operation
+     * @param visitedVertices Number of vertex visits made by the search, 0 for
+     *                        modifications
+     * @param scannedEdges    Number of edges checked by the search, 0 for
+     *                        modifications
+     */
+    void operationCompleted(Operation operation, long nanos, long visitedVertices, long scannedEdges);
+
+    /**
+     * Called when a lock guarding the graph is acquired.
+     *
+     * @param write     true for the exclusive lock
+     * @param waitNanos Time spent waiting for the lock
+     */
+    default void lockAcquired(boolean write, long waitNanos) {
+    }
+
+    /**
+     * Called when a lock guarding the graph is released.
+     *
+     * @param write     true for the exclusive lock
+     * @param holdNanos Time the lock was held
+     */
+    default void lockReleased(boolean write, long holdNanos) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.natera.graph.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Listener collecting the counters and the latency histograms of the graph
+ * operations together with the lock wait and hold times. One instance may be
+ * shared by several graphs and their wrappers. Metrics can be read directly or
+ * through JMX after {@link #register(String)}.
+ */
+public class GraphMetrics implements GraphListener, GraphMetricsMXBean {
+    final static Logger logger = Logger.getLogger(GraphMetrics.class);
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final LongAdder visitedVertices = new LongAdder();
+    private final LongAdder scannedEdges = new LongAdder();
+    private final LatencyHistogram readLockWait = new LatencyHistogram();
+    private final LatencyHistogram writeLockWait = new LatencyHistogram();
+    private final LatencyHistogram readLockHold = new LatencyHistogram();
+    private final LatencyHistogram writeLockHold = new LatencyHistogram();
+    private ObjectName registeredName;
+
+    public GraphMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void operationCompleted(Operation operation, long nanos, long visitedVertices, long scannedEdges) {
+        latencies.get(operation).record(nanos);
+        if (visitedVertices != 0) {
+            this.visitedVertices.add(visitedVertices);
+        }
+        if (scannedEdges != 0) {
+            this.scannedEdges.add(scannedEdges);
+        }
+    }
+
+    @Override
+    public void lockAcquired(boolean write, long waitNanos) {
+        (write ? writeLockWait : readLockWait).record(waitNanos);
+    }
+
+    @Override
+    public void lockReleased(boolean write, long holdNanos) {
+        (write ? writeLockHold : readLockHold).record(holdNanos);
+    }
+
+    /**
+     * @return Latencies of the operation
+     */
+    public LatencyHistogram latency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server under the name
+     * {@code com.natera.graph:type=GraphMetrics,name=<name>}.
+     *
+     * @return true if the metrics were registered
+     */
+    public synchronized boolean register(String name) {
+        if (registeredName != null) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("Metrics are already registered as %s", registeredName));
+            }
+            return false;
+        }
+        try {
+            ObjectName objectName = new ObjectName(
+                    "com.natera.graph:type=GraphMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredName = objectName;
+            return true;
+        } catch (JMException e) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("Metrics can not be registered as \"%s\"", name), e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server.
+     *
+     * @return true if the metrics were registered
+     */
+    public synchronized boolean unregister() {
+        if (registeredName == null) {
+            return false;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(registeredName);
+        } catch (JMException e) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("Metrics can not be unregistered: %s", registeredName), e);
+            }
+        }
+        registeredName = null;
+        return true;
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        latencies.forEach((operation, histogram) -> result.put(operation.name(), histogram.count()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getMeanLatencies() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        latencies.forEach((operation, histogram) -> result.put(operation.name(), histogram.mean()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getLatencies99thPercentile() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        latencies.forEach((operation, histogram) -> result.put(operation.name(), histogram.percentile(0.99)));
+        return result;
+    }
+
+    @Override
+    public long getVisitedVertices() {
+        return visitedVertices.sum();
+    }
+
+    @Override
+    public long getScannedEdges() {
+        return scannedEdges.sum();
+    }
+
+    @Override
+    public long getReadLockAcquisitions() {
+        return readLockWait.count();
+    }
+
+    @Override
+    public long getWriteLockAcquisitions() {
+        return writeLockWait.count();
+    }
+
+    @Override
+    public double getMeanReadLockWait() {
+        return readLockWait.mean();
+    }
+
+    @Override
+    public double getMeanWriteLockWait() {
+        return writeLockWait.mean();
+    }
+
+    @Override
+    public long getReadLockWait99thPercentile() {
+        return readLockWait.percentile(0.99);
+    }
+
+    @Override
+    public long getWriteLockWait99thPercentile() {
+        return writeLockWait.percentile(0.99);
+    }
+
+    @Override
+    public double getMeanReadLockHold() {
+        return readLockHold.mean();
+    }
+
+    @Override
+    public double getMeanWriteLockHold() {
+        return writeLockHold.mean();
+    }
+
+    @Override
+    public void reset() {
+        latencies.values().forEach(LatencyHistogram::reset);
+        visitedVertices.reset();
+        scannedEdges.reset();
+        readLockWait.reset();
+        writeLockWait.reset();
+        readLockHold.reset();
+        writeLockHold.reset();
+    }
+}
@@ -0,0 +1,47 @@
+package com.natera.graph.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link GraphMetrics}. Maps are keyed by the names of
+ * the {@link Operation} constants, all of the durations are in nanoseconds.
+ */
+public interface GraphMetricsMXBean {
+
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Double> getMeanLatencies();
+
+    Map<String, Long> getLatencies99thPercentile();
+
+    /**
+     * @return The total number of vertex visits made by the searches
+     */
+    long getVisitedVertices();
+
+    /**
+     * @return The total number of edges scanned by the searches
+     */
+    long getScannedEdges();
+
+    long getReadLockAcquisitions();
+
+    long getWriteLockAcquisitions();
+
+    double getMeanReadLockWait();
+
+    double getMeanWriteLockWait();
+
+    long getReadLockWait99thPercentile();
+
+    long getWriteLockWait99thPercentile();
+
+    double getMeanReadLockHold();
+
+    double getMeanWriteLockHold();
+
+    /**
+     * Clears all of the metrics.
+     */
+    void reset();
+}
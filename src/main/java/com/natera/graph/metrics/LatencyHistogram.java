@@ -0,0 +1,81 @@
+package com.natera.graph.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations with the power of two buckets. Recording is a couple
+ * of {@link LongAdder} increments, so concurrent writers do not contend.
+ * Percentiles are reported as the upper bounds of the buckets, which is at
+ * most twice the exact value.
+ */
+public final class LatencyHistogram {
+    private final LongAdder[] buckets = new LongAdder[64];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds the value, negative values are taken as 0.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        // bucket i keeps the values of i significant bits
+        buckets[64 - Long.numberOfLeadingZeros(nanos)].increment();
+        count.increment();
+        sum.add(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param quantile Value from 0 to 1
+     * @return The upper bound of the bucket keeping the quantile or 0 if nothing
+     *         was recorded
+     */
+    public long percentile(double quantile) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        for (int i = 0; i < counts.length; i++) {
+            rank -= counts[i];
+            if (rank <= 0) {
+                return (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Clears the histogram. Values recorded concurrently may be partially lost.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        sum.reset();
+    }
+}
@@ -0,0 +1,8 @@
+package com.natera.graph.metrics;
+
+/**
+ * Operations of the graph reported to {@link GraphListener}.
+ */
+public enum Operation {
+    ADD_VERTEX, ADD_EDGE, GET_PATH, GET_PATHS, GET_SHORTEST_PATH, TRAVERSE
+}
@@ -0,0 +1,157 @@
+package com.natera.graph.primitive;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.LongToDoubleFunction;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.natera.graph.PathStrategy;
+import com.natera.graph.topology.TopologySearch;
+import com.natera.graph.util.LongIntHashMap;
+
+/**
+ * Base implementation of {@link LongGraph}. Vertices and edges are mapped to
+ * dense ids by open addressing long maps, adjacency lists are int arrays.
+ */
+public abstract class AbstractLongGraph implements LongGraph {
+    final static Logger logger = Logger.getLogger(AbstractLongGraph.class);
+
+    private final PrimitiveAdjacency adjacency;
+    private final LongIntHashMap vertexIds = new LongIntHashMap();
+    private final LongIntHashMap edgeIds = new LongIntHashMap();
+    private long[] vertices = new long[16];
+    private long[] edges = new long[16];
+    private int edgeCount;
+
+    protected AbstractLongGraph(boolean directed) {
+        adjacency = new PrimitiveAdjacency(directed);
+    }
+
+    /**
+     * @return true if the graph keeps the direction of the edges
+     */
+    public boolean isDirected() {
+        return adjacency.isDirected();
+    }
+
+    public int vertexCount() {
+        return adjacency.vertexCount();
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public boolean addVertex(long v) {
+        int id = adjacency.vertexCount();
+        if (vertexIds.putIfAbsent(v, id) != LongIntHashMap.NO_VALUE) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Vertex is already in the graph: %d", v));
+            }
+            return false;
+        }
+        if (id == vertices.length) {
+            vertices = Arrays.copyOf(vertices, id << 1);
+        }
+        vertices[id] = v;
+        adjacency.addVertex();
+        return true;
+    }
+
+    @Override
+    public boolean addEdge(long src, long dst, long e) {
+        if (edgeIds.containsKey(e)) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("An attempt to add already inserted edge \"%d\"", e));
+            }
+            return false;
+        }
+        int srcId = vertexIds.get(src);
+        int dstId = vertexIds.get(dst);
+        if (srcId == LongIntHashMap.NO_VALUE || dstId == LongIntHashMap.NO_VALUE) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("An attempt to add edge \"%d\" to a not existent vertex", e));
+            }
+            return false;
+        }
+        int id = edgeCount++;
+        edgeIds.putIfAbsent(e, id);
+        if (id == edges.length) {
+            edges = Arrays.copyOf(edges, id << 1);
+        }
+        edges[id] = e;
+        adjacency.addEdge(srcId, dstId, id);
+        return true;
+    }
+
+    /**
+     * Finds path between two vertices in depth first order. Returns null if path
+     * is not found.
+     */
+    @Override
+    public long[] getPath(long v1, long v2) {
+        return getPath(v1, v2, PathStrategy.DEPTH_FIRST);
+    }
+
+    @Override
+    public long[] getPath(long v1, long v2, PathStrategy strategy) {
+        int start = vertexIds.get(v1);
+        int target = vertexIds.get(v2);
+        if (start == LongIntHashMap.NO_VALUE || target == LongIntHashMap.NO_VALUE) {
+            return null;
+        }
+        switch (strategy) {
+        case BREADTH_FIRST:
+            return toEdges(TopologySearch.breadthFirstPath(adjacency, start, target));
+        case BIDIRECTIONAL:
+            return toEdges(TopologySearch.bidirectionalPath(adjacency, start, target));
+        case DEPTH_FIRST:
+        default:
+            return toEdges(TopologySearch.depthFirstPath(adjacency, start, target));
+        }
+    }
+
+    @Override
+    public long[] getShortestPath(long v1, long v2, LongToDoubleFunction cost) {
+        int start = vertexIds.get(v1);
+        int target = vertexIds.get(v2);
+        if (start == LongIntHashMap.NO_VALUE || target == LongIntHashMap.NO_VALUE) {
+            return null;
+        }
+        return toEdges(
+                TopologySearch.cheapestPath(adjacency, start, target,
+                        (v, slot) -> cost.applyAsDouble(edges[adjacency.outEdge(v, slot)]), null));
+    }
+
+    /**
+     * Depth first implementation of traverse algorithm.
+     */
+    @Override
+    public void traverse(long start, LongConsumer consumer) {
+        int id = vertexIds.get(start);
+        if (id == LongIntHashMap.NO_VALUE) {
+            if (logger.isEnabledFor(Level.WARN)) {
+                logger.warn(String.format("Not existent vertex was specfied: %d", start));
+            }
+            return;
+        }
+        TopologySearch.depthFirst(adjacency, id, v -> consumer.accept(vertices[v]));
+    }
+
+    /**
+     * Replaces dense edge ids of the path by the user defined ones.
+     */
+    private long[] toEdges(long[] path) {
+        if (path == null) {
+            return null;
+        }
+        long[] result = new long[path.length];
+        for (int i = 0; i < path.length; i++) {
+            result[i] = edges[adjacency.edgeOf(path[i])];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,9 @@
+package com.natera.graph.primitive;
+
+public class DirectedIntGraph extends AbstractIntGraph {
+
+    public DirectedIntGraph() {
+        super(true);
+    }
+
+}
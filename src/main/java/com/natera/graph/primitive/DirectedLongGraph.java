@@ -0,0 +1,9 @@
+package com.natera.graph.primitive;
+
+public class DirectedLongGraph extends AbstractLongGraph {
+
+    public DirectedLongGraph() {
+        super(true);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.natera.graph.primitive;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+
+import com.natera.graph.PathStrategy;
+
+/**
+ * Graph with int vertices and edges. Mirrors {@link com.natera.graph.Graph}
+ * without boxing of the vertices and edges.
+ */
+public interface IntGraph {
+    /**
+     * Adds vertex to the graph.
+     * 
+     * @param v Vertex to be added
+     * @return true if vertex was added
+     */
+    boolean addVertex(int v);
+
+    /**
+     * Adds the specified edge to the graph. Vertices should be already in the
+     * graph.
+     * 
+     * @param src Source vertex
+     * @param dst Destination vertex
+     * @param e   Edge to be added
+     * @return true if edge was added
+     */
+    boolean addEdge(int src, int dst, int e);
+
+    /**
+     * Finds path between two vertices
+     * 
+     * @param v1 the vertex to start with
+     * @param v2 the target vertex
+     * @return Edges between the specified vertices or null if there is no path
+     */
+    int[] getPath(int v1, int v2);
+
+    /**
+     * Finds path between two vertices using the specified search strategy.
+     * 
+     * @param v1       the vertex to start with
+     * @param v2       the target vertex
+     * @param strategy the way the graph is explored
+     * @return Edges between the specified vertices or null if there is no path
+     */
+    int[] getPath(int v1, int v2, PathStrategy strategy);
+
+    /**
+     * Finds path with the minimal total cost between two vertices.
+     * 
+     * @param v1   the vertex to start with
+     * @param v2   the target vertex
+     * @param cost function returning non negative cost of the edge
+     * @return Edges between the specified vertices or null if there is no path
+     */
+    int[] getShortestPath(int v1, int v2, IntToDoubleFunction cost);
+
+    /**
+     * Traverse through all of the vertices reachable from the start one, passing
+     * them to the specified consumer.
+     *
+     * @param start    Vertex to start with
+     * @param consumer User defined function to accept traversed vertices
+     */
+    void traverse(int start, IntConsumer consumer);
+}
@@ -0,0 +1,69 @@
+package com.natera.graph.primitive;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongToDoubleFunction;
+
+import com.natera.graph.PathStrategy;
+
+/**
+ * Graph with long vertices and edges. Mirrors {@link com.natera.graph.Graph}
+ * without boxing of the vertices and edges.
+ */
+public interface LongGraph {
+    /**
+     * Adds vertex to the graph.
+     * 
+     * @param v Vertex to be added
+     * @return true if vertex was added
+     */
+    boolean addVertex(long v);
+
+    /**
+     * Adds the specified edge to the graph. Vertices should be already in the
+     * graph.
+     * 
+     * @param src Source vertex
+     * @param dst Destination vertex
+     * @param e   Edge to be added
+     * @return true if edge was added
+     */
+    boolean addEdge(long src, long dst, long e);
+
+    /**
+     * Finds path between two vertices
+     * 
+     * @param v1 the vertex to start with
+     * @param v2 the target vertex
+     * @return Edges between the specified vertices or null if there is no path
+     */
+    long[] getPath(long v1, long v2);
+
+    /**
+     * Finds path between two vertices using the specified search strategy.
+     * 
+     * @param v1       the vertex to start with
+     * @param v2       the target vertex
+     * @param strategy the way the graph is explored
+     * @return Edges between the specified vertices or null if there is no path
+     */
+    long[] getPath(long v1, long v2, PathStrategy strategy);
+
+    /**
+     * Finds path with the minimal total cost between two vertices.
+     * 
+     * @param v1   the vertex to start with
+     * @param v2   the target vertex
+     * @param cost function returning non negative cost of the edge
+     * @return Edges between the specified vertices or null if there is no path
+     */
+    long[] getShortestPath(long v1, long v2, LongToDoubleFunction cost);
+
+    /**
+     * Traverse through all of the vertices reachable from the start one, passing
+     * them to the specified consumer.
+     *
+     * @param start    Vertex to start with
+     * @param consumer User defined function to accept traversed vertices
+     */
+    void traverse(long start, LongConsumer consumer);
+}
@@ -0,0 +1,121 @@
+package com.natera.graph.primitive;
+
+import java.util.Arrays;
+
+import com.natera.graph.topology.Topology;
+
+/**
+ * Adjacency lists of a graph with dense int vertex and edge ids. Every vertex
+ * keeps a single int array where the neighbor and the edge id of each adjacent
+ * edge are stored next to each other. Arrays are allocated on the first edge of
+ * the vertex. Undirected graphs share the lists for both directions.
+ */
+class PrimitiveAdjacency implements Topology {
+    private static final int[] NO_EDGES = new int[0];
+
+    private final boolean directed;
+    private int vertexCount;
+    private int[][] outLists = new int[16][];
+    private int[] outDegrees = new int[16];
+    private int[][] inLists;
+    private int[] inDegrees;
+
+    PrimitiveAdjacency(boolean directed) {
+        this.directed = directed;
+        if (directed) {
+            inLists = new int[16][];
+            inDegrees = new int[16];
+        } else {
+            inLists = outLists;
+            inDegrees = outDegrees;
+        }
+    }
+
+    boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * @return The id of the new vertex
+     */
+    int addVertex() {
+        if (vertexCount == outDegrees.length) {
+            int capacity = vertexCount << 1;
+            outLists = Arrays.copyOf(outLists, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+            if (directed) {
+                inLists = Arrays.copyOf(inLists, capacity);
+                inDegrees = Arrays.copyOf(inDegrees, capacity);
+            } else {
+                inLists = outLists;
+                inDegrees = outDegrees;
+            }
+        }
+        outLists[vertexCount] = NO_EDGES;
+        inLists[vertexCount] = NO_EDGES;
+        return vertexCount++;
+    }
+
+    /**
+     * Adds the edge between two vertices given by their ids.
+     */
+    void addEdge(int src, int dst, int edge) {
+        append(outLists, outDegrees, src, dst, edge);
+        if (directed || src != dst) {
+            // loops of undirected graphs are kept once the same way as edge holders do
+            append(inLists, inDegrees, dst, src, edge);
+        }
+    }
+
+    private static void append(int[][] lists, int[] degrees, int v, int neighbor, int edge) {
+        int[] list = lists[v];
+        int position = degrees[v] << 1;
+        if (position == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, position << 1));
+            lists[v] = list;
+        }
+        list[position] = neighbor;
+        list[position + 1] = edge;
+        degrees[v]++;
+    }
+
+    @Override
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return outDegrees[v];
+    }
+
+    @Override
+    public int outTarget(int v, int slot) {
+        return outLists[v][slot << 1];
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return inDegrees[v];
+    }
+
+    @Override
+    public int inSource(int v, int slot) {
+        return inLists[v][slot << 1];
+    }
+
+    /**
+     * @return Dense id of the outgoing edge in the slot
+     */
+    int outEdge(int v, int slot) {
+        return outLists[v][(slot << 1) + 1];
+    }
+
+    /**
+     * @return Dense id of the referenced edge
+     */
+    int edgeOf(long edge) {
+        int[][] lists = Topology.isIngoing(edge) ? inLists : outLists;
+        return lists[Topology.vertexOf(edge)][(Topology.slotOf(edge) << 1) + 1];
+    }
+}
@@ -0,0 +1,9 @@
+package com.natera.graph.primitive;
+
+public class UndirectedIntGraph extends AbstractIntGraph {
+
+    public UndirectedIntGraph() {
+        super(false);
+    }
+
+}
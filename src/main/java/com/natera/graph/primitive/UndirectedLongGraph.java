@@ -0,0 +1,9 @@
+package com.natera.graph.primitive;
+
+public class UndirectedLongGraph extends AbstractLongGraph {
+
+    public UndirectedLongGraph() {
+        super(false);
+    }
+
+}
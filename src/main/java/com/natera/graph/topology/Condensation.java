@@ -0,0 +1,285 @@
+package com.natera.graph.topology;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Strongly connected components of a directed topology and the acyclic graph
+ * of them. Components are the vertices of the condensation, their ids follow a
+ * topological order: every edge between two components goes from the smaller id
+ * to the greater one. Parallel edges between the components are merged.
+ * <p>
+ * Components are found by the iterative variant of Tarjan's algorithm with
+ * Pearce's single index array, so the search does not recurse and takes about
+ * 16 bytes per vertex besides the result. The level of a component is the
+ * length of the longest path to it from a component without ingoing edges.
+ * Both the ids and the levels strictly grow along any path, which rules out
+ * most of the unreachable pairs in constant time, see
+ * {@link #mayReach(int, int)}.
+ * <p>
+ * The condensation describes the topology it was computed for, it should be
+ * computed again after the topology is modified.
+ */
+public final class Condensation implements Topology {
+    /**
+     * Component ids indexed by the vertex ids.
+     */
+    private final int[] components;
+    private final int edgeCount;
+    private final boolean acyclic;
+    private final int[] memberOffsets;
+    private final int[] members;
+    private final int[] levels;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inSources;
+
+    private Condensation(int[] components, int edgeCount, boolean acyclic, int[] memberOffsets, int[] members,
+            int[] outOffsets, int[] outTargets) {
+        this.components = components;
+        this.edgeCount = edgeCount;
+        this.acyclic = acyclic;
+        this.memberOffsets = memberOffsets;
+        this.members = members;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+
+        int count = memberOffsets.length - 1;
+        inOffsets = new int[count + 1];
+        for (int target : outTargets) {
+            inOffsets[target + 1]++;
+        }
+        prefixSum(inOffsets);
+        inSources = new int[outTargets.length];
+        int[] positions = Arrays.copyOf(inOffsets, count);
+        levels = new int[count];
+        for (int c = 0; c < count; c++) {
+            for (int i = outOffsets[c]; i < outOffsets[c + 1]; i++) {
+                int target = outTargets[i];
+                inSources[positions[target]++] = c;
+                // predecessors come first in the topological order
+                levels[target] = Math.max(levels[target], levels[c] + 1);
+            }
+        }
+    }
+
+    /**
+     * Computes the strongly connected components following the outgoing edges.
+     */
+    public static Condensation compute(Topology topology) {
+        int n = topology.vertexCount();
+        // Pearce's rindex: the visit index of the vertex or of the earliest vertex
+        // reachable from it while it is in progress, then its component counted
+        // down from n - 1
+        int[] rindex = new int[n];
+        int[] stack = new int[n];
+        int[] frames = new int[n];
+        int[] slots = new int[n];
+        BitSet notRoot = new BitSet();
+        int stackSize = 0;
+        int index = 1;
+        int component = n - 1;
+        int edgeCount = 0;
+        for (int root = 0; root < n; root++) {
+            if (rindex[root] != 0) {
+                continue;
+            }
+            rindex[root] = index++;
+            frames[0] = root;
+            slots[0] = 0;
+            int depth = 1;
+            while (depth > 0) {
+                int v = frames[depth - 1];
+                int slot = slots[depth - 1];
+                if (slot < topology.outDegree(v)) {
+                    slots[depth - 1] = slot + 1;
+                    edgeCount++;
+                    int w = topology.outTarget(v, slot);
+                    if (rindex[w] == 0) {
+                        rindex[w] = index++;
+                        frames[depth] = w;
+                        slots[depth++] = 0;
+                    } else if (rindex[w] < rindex[v]) {
+                        rindex[v] = rindex[w];
+                        notRoot.set(v);
+                    }
+                    continue;
+                }
+                depth--;
+                if (notRoot.get(v)) {
+                    stack[stackSize++] = v;
+                } else {
+                    index--;
+                    while (stackSize > 0 && rindex[v] <= rindex[stack[stackSize - 1]]) {
+                        rindex[stack[--stackSize]] = component;
+                        index--;
+                    }
+                    rindex[v] = component--;
+                }
+                if (depth > 0) {
+                    int parent = frames[depth - 1];
+                    if (rindex[v] < rindex[parent]) {
+                        rindex[parent] = rindex[v];
+                        notRoot.set(parent);
+                    }
+                }
+            }
+        }
+        stack = null;
+        frames = null;
+        slots = null;
+
+        // components are completed in the reverse topological order, so the ones
+        // counted down from n - 1 are already sorted
+        int count = n - 1 - component;
+        for (int v = 0; v < n; v++) {
+            rindex[v] -= component + 1;
+        }
+
+        int[] memberOffsets = new int[count + 1];
+        for (int c : rindex) {
+            memberOffsets[c + 1]++;
+        }
+        prefixSum(memberOffsets);
+        int[] members = new int[n];
+        int[] positions = Arrays.copyOf(memberOffsets, count);
+        for (int v = 0; v < n; v++) {
+            members[positions[rindex[v]]++] = v;
+        }
+        positions = null;
+
+        // edges between the components, the marks keep the component which has
+        // the edge already
+        int[] outOffsets = new int[count + 1];
+        int[] outTargets = new int[Math.max(16, count)];
+        int[] marks = new int[count];
+        Arrays.fill(marks, -1);
+        int size = 0;
+        boolean selfLoops = false;
+        for (int c = 0; c < count; c++) {
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                int v = members[i];
+                int degree = topology.outDegree(v);
+                for (int slot = 0; slot < degree; slot++) {
+                    int w = topology.outTarget(v, slot);
+                    int target = rindex[w];
+                    if (target == c) {
+                        selfLoops |= w == v;
+                    } else if (marks[target] != c) {
+                        marks[target] = c;
+                        if (size == outTargets.length) {
+                            outTargets = Arrays.copyOf(outTargets, Math.min(edgeCount, size << 1));
+                        }
+                        outTargets[size++] = target;
+                    }
+                }
+            }
+            outOffsets[c + 1] = size;
+        }
+        return new Condensation(rindex, edgeCount, count == n && !selfLoops, memberOffsets, members, outOffsets,
+                Arrays.copyOf(outTargets, size));
+    }
+
+    /**
+     * @return The component of the vertex
+     */
+    public int componentOf(int v) {
+        return components[v];
+    }
+
+    /**
+     * @return The number of vertices of the component
+     */
+    public int componentSize(int component) {
+        return memberOffsets[component + 1] - memberOffsets[component];
+    }
+
+    /**
+     * @return The vertex of the component given by its position in the component
+     */
+    public int member(int component, int i) {
+        return members[memberOffsets[component] + i];
+    }
+
+    /**
+     * @return The length of the longest path to the component in the
+     *         condensation
+     */
+    public int level(int component) {
+        return levels[component];
+    }
+
+    /**
+     * @return true if the topology has neither cycles nor loops, the component
+     *         ids are the topological order of the vertices then
+     */
+    public boolean isAcyclic() {
+        return acyclic;
+    }
+
+    /**
+     * @return The number of vertices of the source topology
+     */
+    public int sourceVertexCount() {
+        return components.length;
+    }
+
+    /**
+     * @return The number of edges of the source topology
+     */
+    public int sourceEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Checks if the target may be reachable from the vertex in constant time. The
+     * vertices of the same component reach each other, otherwise the component of
+     * the target should be both later in the topological order and on a greater
+     * level. Vertices unknown to the condensation may be reachable.
+     *
+     * @return false if there is no path, true if there may be one
+     */
+    public boolean mayReach(int v, int target) {
+        if (v >= components.length || target >= components.length) {
+            return true;
+        }
+        int from = components[v];
+        int to = components[target];
+        return from == to || from < to && levels[from] < levels[to];
+    }
+
+    /**
+     * @return The number of components
+     */
+    @Override
+    public int vertexCount() {
+        return levels.length;
+    }
+
+    @Override
+    public int outDegree(int component) {
+        return outOffsets[component + 1] - outOffsets[component];
+    }
+
+    @Override
+    public int outTarget(int component, int slot) {
+        return outTargets[outOffsets[component] + slot];
+    }
+
+    @Override
+    public int inDegree(int component) {
+        return inOffsets[component + 1] - inOffsets[component];
+    }
+
+    @Override
+    public int inSource(int component, int slot) {
+        return inSources[inOffsets[component] + slot];
+    }
+
+    private static void prefixSum(int[] offsets) {
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+}
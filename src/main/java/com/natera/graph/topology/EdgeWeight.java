@@ -0,0 +1,9 @@
+package com.natera.graph.topology;
+
+/**
+ * Returns the cost of the outgoing edge given by the vertex id and the slot.
+ */
+@FunctionalInterface
+public interface EdgeWeight {
+    double weight(int v, int slot);
+}
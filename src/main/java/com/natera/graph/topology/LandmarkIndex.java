@@ -0,0 +1,357 @@
+package com.natera.graph.topology;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.natera.graph.util.IndexedDoubleHeap;
+
+/**
+ * Precomputed distances between a few landmark vertices and all of the other
+ * vertices. By the triangle inequality every landmark L bounds the distance
+ * between vertices s and t from below by {@code d(L, t) - d(L, s)} and
+ * {@code d(s, L) - d(t, L)}, and from above by {@code d(s, L) + d(L, t)}. The
+ * lower bound is an admissible A* heuristic, so the cheapest path search guided
+ * by it stays exact while visiting much fewer vertices (the ALT algorithm).
+ * <p>
+ * Distances are kept in primitive arrays indexed by the landmark and the vertex
+ * id, unreachable vertices are at the infinite distance. Distances to the
+ * landmarks are computed along the ingoing edges and are not kept separately
+ * for undirected graphs. The searches from the landmarks run in parallel.
+ * <p>
+ * The index describes the topology it was built for, it should be rebuilt when
+ * edges are added or costs are changed, otherwise the bounds may be wrong.
+ * Vertices added later get the trivial bounds.
+ */
+public final class LandmarkIndex {
+    private static final int MAGIC = 0x4E474C49;
+    private static final int VERSION = 1;
+
+    private final boolean directed;
+    private final int vertexCount;
+    private final int[] landmarks;
+    /**
+     * Distances from the landmarks, {@code from[l * vertexCount + v]}.
+     */
+    private final double[] from;
+    /**
+     * Distances to the landmarks, the same array as {@code from} for undirected
+     * graphs.
+     */
+    private final double[] to;
+
+    private LandmarkIndex(boolean directed, int vertexCount, int[] landmarks, double[] from, double[] to) {
+        this.directed = directed;
+        this.vertexCount = vertexCount;
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Builds the index with the landmarks chosen at random. The seed is fixed,
+     * so the same topology always gets the same landmarks.
+     *
+     * @param topology      The graph structure
+     * @param count         Number of landmarks
+     * @param directed      true if the ingoing edges differ from the outgoing ones
+     * @param weight        Non negative cost of the outgoing edge or null to count
+     *                      the edges
+     * @param ingoingWeight Non negative cost of the ingoing edge given by the
+     *                      vertex id and the ingoing slot, used for directed graphs
+     *                      only, or null to count the edges
+     * @param pool          Pool to run the searches
+     */
+    public static LandmarkIndex build(Topology topology, int count, boolean directed, EdgeWeight weight,
+            EdgeWeight ingoingWeight, ForkJoinPool pool) {
+        int n = topology.vertexCount();
+        int[] all = new int[n];
+        for (int v = 0; v < n; v++) {
+            all[v] = v;
+        }
+        // partial Fisher-Yates shuffle
+        Random random = new Random(n);
+        count = Math.min(count, n);
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(n - i);
+            int swap = all[i];
+            all[i] = all[j];
+            all[j] = swap;
+        }
+        return build(topology, Arrays.copyOf(all, count), directed, weight, ingoingWeight, pool);
+    }
+
+    /**
+     * Builds the index for the specified landmarks. Landmarks spread over the
+     * periphery of the graph give the tightest bounds.
+     *
+     * @see #build(Topology, int, boolean, EdgeWeight, EdgeWeight, ForkJoinPool)
+     */
+    public static LandmarkIndex build(Topology topology, int[] landmarks, boolean directed, EdgeWeight weight,
+            EdgeWeight ingoingWeight, ForkJoinPool pool) {
+        int n = topology.vertexCount();
+        int length = Math.multiplyExact(landmarks.length, n);
+        double[] from = new double[length];
+        double[] to = directed ? new double[length] : from;
+        List<ForkJoinTask<?>> searches = new ArrayList<>();
+        for (int l = 0; l < landmarks.length; l++) {
+            searches.add(new Search(topology, landmarks[l], false, weight, from, l * n));
+            if (directed) {
+                searches.add(new Search(topology, landmarks[l], true, ingoingWeight, to, l * n));
+            }
+        }
+        pool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(searches);
+            }
+        });
+        return new LandmarkIndex(directed, n, landmarks.clone(), from, to);
+    }
+
+    /**
+     * @return The ids of the landmarks
+     */
+    public int[] landmarks() {
+        return landmarks.clone();
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Lower bound of the distance between the vertices in O(landmarks) time.
+     *
+     * @return The bound, infinity if there is no path, 0 if nothing is known
+     */
+    public double lowerBound(int v, int target) {
+        if (v >= vertexCount || target >= vertexCount) {
+            return 0;
+        }
+        double bound = 0;
+        for (int offset = 0; offset < from.length; offset += vertexCount) {
+            double fromLandmark = from[offset + target] - from[offset + v];
+            double toLandmark = to[offset + v] - to[offset + target];
+            // NaN of two infinities is skipped by the comparisons
+            if (fromLandmark > bound) {
+                bound = fromLandmark;
+            }
+            if (toLandmark > bound) {
+                bound = toLandmark;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Approximate distance between the vertices in O(landmarks) time: the length
+     * of the shortest path through a landmark.
+     *
+     * @return The upper bound of the distance or infinity if no landmark connects
+     *         the vertices
+     */
+    public double upperBound(int v, int target) {
+        if (v == target) {
+            return 0;
+        }
+        if (v >= vertexCount || target >= vertexCount) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double bound = Double.POSITIVE_INFINITY;
+        for (int offset = 0; offset < from.length; offset += vertexCount) {
+            bound = Math.min(bound, to[offset + v] + from[offset + target]);
+        }
+        return bound;
+    }
+
+    /**
+     * @return The lower bound as A* heuristic
+     */
+    public VertexHeuristic heuristic() {
+        return this::lowerBound;
+    }
+
+    /**
+     * Writes the index to the file: the header of five ints: magic number, format
+     * version, 1 for directed graph, the numbers of vertices and landmarks, then
+     * the landmarks and the distances. All numbers are big-endian.
+     */
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(directed ? 1 : 0);
+            out.writeInt(vertexCount);
+            out.writeInt(landmarks.length);
+            for (int landmark : landmarks) {
+                out.writeInt(landmark);
+            }
+            for (double distance : from) {
+                out.writeDouble(distance);
+            }
+            if (directed) {
+                for (double distance : to) {
+                    out.writeDouble(distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the index written by {@link #save(Path)}, the distances are copied
+     * from the mapped file in bulk.
+     *
+     * @throws IOException if the file can not be read or is not a valid index
+     */
+    public static LandmarkIndex load(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Landmark index is too large to be mapped: %s", path));
+            }
+            buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(String.format("Not a landmark index: %s", path));
+            }
+            boolean directed = buffer.getInt() != 0;
+            int n = buffer.getInt();
+            int count = buffer.getInt();
+            if (n < 0 || count < 0 || Math.multiplyExact(count, 4) > buffer.remaining()) {
+                throw corrupted(path);
+            }
+            int[] landmarks = new int[count];
+            buffer.asIntBuffer().get(landmarks);
+            buffer.position(buffer.position() + count * 4);
+            for (int landmark : landmarks) {
+                if (landmark < 0 || landmark >= n) {
+                    throw corrupted(path);
+                }
+            }
+            int length = Math.multiplyExact(count, n);
+            double[] from = readDoubles(buffer, length, path);
+            double[] to = directed ? readDoubles(buffer, length, path) : from;
+            return new LandmarkIndex(directed, n, landmarks, from, to);
+        } catch (BufferUnderflowException | ArithmeticException e) {
+            throw new IOException(String.format("Corrupted landmark index: %s", path), e);
+        }
+    }
+
+    /**
+     * Reads the doubles if the buffer has enough of them.
+     */
+    private static double[] readDoubles(ByteBuffer buffer, int length, Path path) throws IOException {
+        if (Math.multiplyExact(length, 8) > buffer.remaining()) {
+            throw corrupted(path);
+        }
+        double[] values = new double[length];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + length * 8);
+        return values;
+    }
+
+    private static IOException corrupted(Path path) {
+        return new IOException(String.format("Corrupted landmark index: %s", path));
+    }
+
+    /**
+     * Single source search from the landmark writing the distances into its part
+     * of the shared array. Breadth first search counts the edges, Dijkstra's
+     * algorithm is used for the weighted edges.
+     */
+    private static final class Search extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Topology topology;
+        private final int landmark;
+        private final boolean backward;
+        private final EdgeWeight weight;
+        private final double[] distances;
+        private final int offset;
+
+        Search(Topology topology, int landmark, boolean backward, EdgeWeight weight, double[] distances,
+                int offset) {
+            this.topology = topology;
+            this.landmark = landmark;
+            this.backward = backward;
+            this.weight = weight;
+            this.distances = distances;
+            this.offset = offset;
+        }
+
+        @Override
+        protected void compute() {
+            int n = topology.vertexCount();
+            Arrays.fill(distances, offset, offset + n, Double.POSITIVE_INFINITY);
+            distances[offset + landmark] = 0;
+            if (weight == null) {
+                breadthFirst(n);
+            } else {
+                dijkstra(n);
+            }
+        }
+
+        private void breadthFirst(int n) {
+            int[] queue = new int[n];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = landmark;
+            while (head < tail) {
+                int v = queue[head++];
+                double distance = distances[offset + v] + 1;
+                int degree = backward ? topology.inDegree(v) : topology.outDegree(v);
+                for (int slot = 0; slot < degree; slot++) {
+                    int next = backward ? topology.inSource(v, slot) : topology.outTarget(v, slot);
+                    if (distances[offset + next] == Double.POSITIVE_INFINITY) {
+                        distances[offset + next] = distance;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        private void dijkstra(int n) {
+            IndexedDoubleHeap queue = new IndexedDoubleHeap(n);
+            boolean[] settled = new boolean[n];
+            queue.put(landmark, 0);
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                settled[v] = true;
+                double distance = distances[offset + v];
+                int degree = backward ? topology.inDegree(v) : topology.outDegree(v);
+                for (int slot = 0; slot < degree; slot++) {
+                    double cost = weight.weight(v, slot);
+                    if (!(cost >= 0)) {
+                        throw new IllegalArgumentException(
+                                String.format("Invalid cost %s of edge %d:%d", cost, v, slot));
+                    }
+                    int next = backward ? topology.inSource(v, slot) : topology.outTarget(v, slot);
+                    double nextDistance = distance + cost;
+                    if (!settled[next] && nextDistance < distances[offset + next]) {
+                        distances[offset + next] = nextDistance;
+                        queue.put(next, nextDistance);
+                    }
+                }
+            }
+        }
+    }
+}
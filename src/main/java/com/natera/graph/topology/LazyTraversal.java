@@ -0,0 +1,344 @@
+package com.natera.graph.topology;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+import com.natera.graph.util.AtomicBitSet;
+
+/**
+ * Traversals computing the vertices on demand. Every step scans the edges only
+ * until the next vertex is found, so the work is proportional to the number of
+ * taken vertices and an abandoned traversal costs nothing. The state grows with
+ * the reached part of the graph: visited vertices are marked in a growing bit
+ * set and the queues are extended when needed.
+ * <p>
+ * The topology should not be modified while the traversal is in progress.
+ */
+public final class LazyTraversal {
+
+    private LazyTraversal() {
+    }
+
+    /**
+     * @return Iterator over the vertices reachable from the start one in the same
+     *         depth first order as {@link TopologySearch#depthFirst}
+     */
+    public static PrimitiveIterator.OfInt depthFirst(Topology topology, int start) {
+        return new DepthFirstIterator(topology, start);
+    }
+
+    /**
+     * @return Iterator over the vertices reachable from the start one in breadth
+     *         first order
+     */
+    public static PrimitiveIterator.OfInt breadthFirst(Topology topology, int start) {
+        return new BreadthFirstIterator(topology, start);
+    }
+
+    /**
+     * Breadth first spliterator over the vertices reachable from the start one.
+     * Splitting hands over a half of the queued vertices to the new spliterator,
+     * from then on the spliterators claim vertices in a shared atomic bit set, so
+     * every vertex is reported once. Vertices of the split spliterators come in
+     * no particular order.
+     */
+    public static Spliterator.OfInt spliterator(Topology topology, int start) {
+        return new BreadthFirstSpliterator(topology, start);
+    }
+
+    /**
+     * @return Iterator converting the ids taken from the id iterator
+     */
+    public static <V> Iterator<V> mapped(PrimitiveIterator.OfInt ids, IntFunction<? extends V> vertex) {
+        return new Iterator<V>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return vertex.apply(ids.nextInt());
+            }
+        };
+    }
+
+    private static final class DepthFirstIterator implements PrimitiveIterator.OfInt {
+        private final Topology topology;
+        private final BitSet visited = new BitSet();
+        private int[] vertices = new int[16];
+        private int[] slots = new int[16];
+        private int size;
+        /**
+         * Found vertex which is not taken yet or -1.
+         */
+        private int next;
+
+        DepthFirstIterator(Topology topology, int start) {
+            this.topology = topology;
+            visited.set(start);
+            next = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < 0) {
+                next = advance();
+            }
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int v = next;
+            next = -1;
+            // the vertex is expanded when the one after it is requested
+            if (size == vertices.length) {
+                vertices = Arrays.copyOf(vertices, size << 1);
+                slots = Arrays.copyOf(slots, size << 1);
+            }
+            vertices[size] = v;
+            slots[size++] = 0;
+            return v;
+        }
+
+        private int advance() {
+            while (size > 0) {
+                int top = size - 1;
+                int v = vertices[top];
+                int degree = topology.outDegree(v);
+                for (int slot = slots[top]; slot < degree; slot++) {
+                    int target = topology.outTarget(v, slot);
+                    if (!visited.get(target)) {
+                        visited.set(target);
+                        slots[top] = slot + 1;
+                        return target;
+                    }
+                }
+                size--;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Queue of the reached vertices. Vertices before {@code head} are expanded,
+     * vertices before {@code taken} are passed to the user. Splitting may expand
+     * the vertices ahead of the taken ones.
+     */
+    private abstract static class BreadthFirstQueue {
+        final Topology topology;
+        int[] queue;
+        int head;
+        int slot;
+        int taken;
+        int tail;
+
+        BreadthFirstQueue(Topology topology, int[] queue, int tail) {
+            this.topology = topology;
+            this.queue = queue;
+            this.tail = tail;
+        }
+
+        /**
+         * Marks the vertex as visited.
+         *
+         * @return true if the vertex was not visited before
+         */
+        abstract boolean claim(int v);
+
+        /**
+         * @return The next vertex or -1 if the traversal is completed
+         */
+        int take() {
+            if (taken < tail) {
+                return queue[taken++];
+            }
+            while (head < tail) {
+                int v = queue[head];
+                int degree = topology.outDegree(v);
+                while (slot < degree) {
+                    int target = topology.outTarget(v, slot++);
+                    if (claim(target)) {
+                        add(target);
+                        return queue[taken++];
+                    }
+                }
+                head++;
+                slot = 0;
+            }
+            return -1;
+        }
+
+        /**
+         * Expands the queued vertices without passing them to the user until more
+         * than the specified number of vertices after the head are not expanded or
+         * all of the reachable vertices are queued.
+         */
+        void expandAhead(int count) {
+            while (head < tail && tail - head - 1 <= count) {
+                int v = queue[head];
+                int degree = topology.outDegree(v);
+                while (slot < degree) {
+                    int target = topology.outTarget(v, slot++);
+                    if (claim(target)) {
+                        add(target);
+                    }
+                }
+                head++;
+                slot = 0;
+            }
+        }
+
+        private void add(int v) {
+            if (tail == queue.length) {
+                // expanded and taken vertices are not needed any more
+                int done = Math.min(head, taken);
+                if (done > queue.length >> 1) {
+                    System.arraycopy(queue, done, queue, 0, tail - done);
+                    head -= done;
+                    taken -= done;
+                    tail -= done;
+                } else {
+                    queue = Arrays.copyOf(queue, tail << 1);
+                }
+            }
+            queue[tail++] = v;
+        }
+    }
+
+    private static final class BreadthFirstIterator extends BreadthFirstQueue implements PrimitiveIterator.OfInt {
+        private final BitSet visited = new BitSet();
+        private int next = -1;
+
+        BreadthFirstIterator(Topology topology, int start) {
+            super(topology, new int[16], 1);
+            queue[0] = start;
+            visited.set(start);
+        }
+
+        @Override
+        boolean claim(int v) {
+            if (visited.get(v)) {
+                return false;
+            }
+            visited.set(v);
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < 0) {
+                next = take();
+            }
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int v = next;
+            next = -1;
+            return v;
+        }
+    }
+
+    private static final class BreadthFirstSpliterator extends BreadthFirstQueue implements Spliterator.OfInt {
+        /**
+         * Marks of the spliterator which was never split.
+         */
+        private BitSet visited;
+        /**
+         * Marks shared by the split spliterators.
+         */
+        private AtomicBitSet shared;
+
+        BreadthFirstSpliterator(Topology topology, int start) {
+            super(topology, new int[16], 1);
+            queue[0] = start;
+            visited = new BitSet();
+            visited.set(start);
+        }
+
+        private BreadthFirstSpliterator(Topology topology, int[] queue, int taken, AtomicBitSet shared) {
+            super(topology, queue, queue.length);
+            this.taken = taken;
+            this.shared = shared;
+        }
+
+        @Override
+        boolean claim(int v) {
+            if (shared != null) {
+                return !shared.get(v) && shared.trySet(v);
+            }
+            if (visited.get(v)) {
+                return false;
+            }
+            visited.set(v);
+            return true;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            int v = take();
+            if (v < 0) {
+                return false;
+            }
+            action.accept(v);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            for (int v = take(); v >= 0; v = take()) {
+                action.accept(v);
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            // the traversal starts with a single vertex, so there is nothing to hand
+            // over until the frontier is expanded
+            expandAhead(1);
+            // the vertex being expanded stays with this spliterator
+            int from = head + 1;
+            if (tail - from < 2) {
+                return null;
+            }
+            if (shared == null) {
+                shared = new AtomicBitSet(topology.vertexCount());
+                for (int v = visited.nextSetBit(0); v >= 0; v = visited.nextSetBit(v + 1)) {
+                    shared.trySet(v);
+                }
+                visited = null;
+            }
+            int middle = (from + tail) >>> 1;
+            int[] half = Arrays.copyOfRange(queue, middle, tail);
+            Spliterator.OfInt split = new BreadthFirstSpliterator(topology, half, Math.max(0, taken - middle), shared);
+            taken = Math.min(taken, middle);
+            tail = middle;
+            return split;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+    }
+}
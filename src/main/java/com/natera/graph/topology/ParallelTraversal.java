@@ -0,0 +1,200 @@
+package com.natera.graph.topology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import com.natera.graph.util.AtomicBitSet;
+
+/**
+ * Level synchronous breadth first traversal running on a fork/join pool. Every
+ * level is split into chunks expanded by parallel tasks, visited vertices are
+ * marked in an atomic bit set, so every vertex is claimed by a single task.
+ * <p>
+ * Levels are expanded in one of two directions. Top-down steps follow the
+ * outgoing edges of the frontier. Once the frontier becomes a noticeable part
+ * of the graph, bottom-up steps are used instead: every not visited vertex
+ * looks for a frontier vertex among the sources of its ingoing edges and stops
+ * at the first one, which checks much fewer edges on the large levels.
+ * <p>
+ * The topology should not be modified during the traversal.
+ */
+public final class ParallelTraversal {
+    /**
+     * Number of vertices expanded by a single task.
+     */
+    static final int CHUNK_SIZE = 1024;
+    /**
+     * Switch to bottom-up steps when the frontier exceeds this part of the graph.
+     */
+    static final int BOTTOM_UP_RATIO = 14;
+    /**
+     * Switch back to top-down steps when the frontier gets below this part.
+     */
+    static final int TOP_DOWN_RATIO = 24;
+
+    private final Topology topology;
+    private final IntConsumer visitor;
+    private final AtomicBitSet visited;
+    private int[] frontier;
+    private int frontierSize;
+    private long[] frontierSet;
+
+    private ParallelTraversal(Topology topology, IntConsumer visitor) {
+        this.topology = topology;
+        this.visitor = visitor;
+        visited = new AtomicBitSet(topology.vertexCount());
+    }
+
+    /**
+     * Walks through the vertices reachable from the start one in breadth first
+     * order. The visitor is called concurrently from the threads of the pool,
+     * exactly once for every reached vertex, and vertices of the same level come
+     * in no particular order.
+     *
+     * @param topology The graph structure
+     * @param start    Vertex to start with
+     * @param visitor  Thread safe function to accept ids of visited vertices
+     * @param pool     Pool to run the tasks
+     */
+    public static void breadthFirst(Topology topology, int start, IntConsumer visitor, ForkJoinPool pool) {
+        new ParallelTraversal(topology, visitor).run(start, pool);
+    }
+
+    private void run(int start, ForkJoinPool pool) {
+        int n = topology.vertexCount();
+        visited.trySet(start);
+        visitor.accept(start);
+        frontier = new int[] { start };
+        frontierSize = 1;
+        boolean bottomUp = false;
+        while (frontierSize > 0) {
+            if (!bottomUp && frontierSize > n / BOTTOM_UP_RATIO) {
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < n / TOP_DOWN_RATIO) {
+                bottomUp = false;
+            }
+            List<Step> steps = new ArrayList<>();
+            if (bottomUp) {
+                frontierSet = new long[(n + 63) >>> 6];
+                for (int i = 0; i < frontierSize; i++) {
+                    frontierSet[frontier[i] >>> 6] |= 1L << frontier[i];
+                }
+                for (int from = 0; from < n; from += CHUNK_SIZE) {
+                    steps.add(new BottomUpStep(from, Math.min(n, from + CHUNK_SIZE)));
+                }
+            } else {
+                for (int from = 0; from < frontierSize; from += CHUNK_SIZE) {
+                    steps.add(new TopDownStep(from, Math.min(frontierSize, from + CHUNK_SIZE)));
+                }
+            }
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(steps);
+                }
+            });
+            int size = 0;
+            for (Step step : steps) {
+                size += step.size;
+            }
+            int[] next = new int[size];
+            size = 0;
+            for (Step step : steps) {
+                System.arraycopy(step.found, 0, next, size, step.size);
+                size += step.size;
+            }
+            frontier = next;
+            frontierSize = size;
+        }
+    }
+
+    /**
+     * Task expanding a chunk of the level and collecting the vertices of the next
+     * one.
+     */
+    private abstract class Step extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int from;
+        final int to;
+        int[] found = new int[16];
+        int size;
+
+        Step(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void add(int v) {
+            if (size == found.length) {
+                found = Arrays.copyOf(found, size << 1);
+            }
+            found[size++] = v;
+        }
+    }
+
+    /**
+     * Follows the outgoing edges of the frontier vertices from the range.
+     */
+    private class TopDownStep extends Step {
+        private static final long serialVersionUID = 1L;
+
+        TopDownStep(int from, int to) {
+            super(from, to);
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = from; i < to; i++) {
+                int v = frontier[i];
+                int degree = topology.outDegree(v);
+                for (int slot = 0; slot < degree; slot++) {
+                    int next = topology.outTarget(v, slot);
+                    if (!visited.get(next) && visited.trySet(next)) {
+                        visitor.accept(next);
+                        add(next);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks for the frontier vertices among the sources of the ingoing edges of
+     * not visited vertices from the range.
+     */
+    private class BottomUpStep extends Step {
+        private static final long serialVersionUID = 1L;
+
+        BottomUpStep(int from, int to) {
+            super(from, to);
+        }
+
+        @Override
+        protected void compute() {
+            for (int v = from; v < to; v++) {
+                if (visited.get(v)) {
+                    continue;
+                }
+                int degree = topology.inDegree(v);
+                for (int slot = 0; slot < degree; slot++) {
+                    int source = topology.inSource(v, slot);
+                    if ((frontierSet[source >>> 6] & (1L << source)) != 0) {
+                        // vertices of the range are claimed by this task only
+                        visited.trySet(v);
+                        visitor.accept(v);
+                        add(v);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.natera.graph.topology;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+import com.natera.graph.util.IndexedDoubleHeap;
+
+/**
+ * Reusable state of a search. Marks of visited vertices are stamped by the
+ * number of the search, so starting a new search is a single increment instead
+ * of clearing the arrays. Contexts are pooled per thread, a search started from
+ * inside of another one on the same thread gets a context of its own. Only the
+ * arrays used by the kinds of searches run on the thread are allocated, e.g. a
+ * depth first search takes 12 bytes per vertex, and they are kept until
+ * {@link #trim()} is called.
+ * <p>
+ * Contexts count the visited vertices and the scanned edges, the counts are
+ * added to the totals of the thread when the context is released. Every 1024
+ * visited vertices the abort condition of the thread is checked.
+ */
+final class SearchContext {
+    private static final ThreadLocal<SearchContext> POOL = ThreadLocal.withInitial(SearchContext::new);
+    private static final int ABORT_CHECK_MASK = 1023;
+    private static final int[] EMPTY = new int[0];
+    private static final long[] EMPTY_LONGS = new long[0];
+    private static final double[] EMPTY_DOUBLES = new double[0];
+
+    private boolean inUse;
+    /**
+     * Pooled context of the thread keeping the totals.
+     */
+    private SearchContext owner = this;
+    private long visitedTotal;
+    private long scannedTotal;
+    /**
+     * Condition aborting the searches of the thread or null.
+     */
+    private BooleanSupplier abort;
+    int visitedCount;
+    int scannedCount;
+    private int epoch;
+    /**
+     * Number of vertices the arrays are allocated for, every array except the
+     * forward marks is allocated on the first use by a kind of search.
+     */
+    private int capacity;
+    private int[] forwardMarks = EMPTY;
+    private int[] backwardMarks = EMPTY;
+    private int[] parents = EMPTY;
+    private long[] parentEdges = EMPTY_LONGS;
+    private int[] backwardParents = EMPTY;
+    private long[] backwardEdges = EMPTY_LONGS;
+    private int[] queue = EMPTY;
+    private int[] backwardQueue = EMPTY;
+    private int[] slots = EMPTY;
+    private double[] distances = EMPTY_DOUBLES;
+    private IndexedDoubleHeap heap;
+
+    /**
+     * Takes the context of the current thread and prepares it for a search over
+     * the specified number of vertices.
+     */
+    static SearchContext acquire(int vertexCount) {
+        SearchContext context = POOL.get();
+        if (context.inUse) {
+            SearchContext owner = context;
+            context = new SearchContext();
+            context.owner = owner;
+        }
+        context.inUse = true;
+        context.prepare(vertexCount);
+        return context;
+    }
+
+    /**
+     * Returns the context to the pool.
+     */
+    void release() {
+        owner.visitedTotal += visitedCount;
+        owner.scannedTotal += scannedCount;
+        inUse = false;
+    }
+
+    /**
+     * Sets the condition aborting the searches of the current thread.
+     *
+     * @return The previous condition
+     */
+    static BooleanSupplier abortWhen(BooleanSupplier abort) {
+        SearchContext context = POOL.get();
+        BooleanSupplier previous = context.abort;
+        context.abort = abort;
+        return previous;
+    }
+
+    /**
+     * @return The number of vertices visited by the searches of the current thread
+     */
+    static long visitedTotal() {
+        return POOL.get().visitedTotal;
+    }
+
+    /**
+     * @return The number of edges scanned by the searches of the current thread
+     */
+    static long scannedTotal() {
+        return POOL.get().scannedTotal;
+    }
+
+    /**
+     * Drops the arrays of the current thread unless a search is running on it, the
+     * totals are kept.
+     */
+    static void trim() {
+        SearchContext context = POOL.get();
+        if (!context.inUse) {
+            context.capacity = 0;
+            context.epoch = 0;
+            context.forwardMarks = EMPTY;
+            context.dropArrays();
+        }
+    }
+
+    private void dropArrays() {
+        backwardMarks = EMPTY;
+        parents = EMPTY;
+        parentEdges = EMPTY_LONGS;
+        backwardParents = EMPTY;
+        backwardEdges = EMPTY_LONGS;
+        queue = EMPTY;
+        backwardQueue = EMPTY;
+        slots = EMPTY;
+        distances = EMPTY_DOUBLES;
+        heap = null;
+    }
+
+    private void prepare(int vertexCount) {
+        visitedCount = 0;
+        scannedCount = 0;
+        if (capacity < vertexCount) {
+            capacity = Math.max(vertexCount, capacity + (capacity >> 1));
+            forwardMarks = new int[capacity];
+            // the marks are stamped from the first epoch again, the rest is
+            // allocated again when it is needed
+            dropArrays();
+            epoch = 0;
+        }
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(forwardMarks, 0);
+            Arrays.fill(backwardMarks, 0);
+            epoch = 1;
+        }
+        if (heap != null) {
+            heap.clear();
+        }
+    }
+
+    /**
+     * Allocates the backward marks, should be called before the first backward
+     * visit of the search.
+     */
+    void prepareBackward() {
+        if (backwardMarks.length < capacity) {
+            backwardMarks = new int[capacity];
+        }
+    }
+
+    int[] parents() {
+        if (parents.length < capacity) {
+            parents = new int[capacity];
+        }
+        return parents;
+    }
+
+    long[] parentEdges() {
+        if (parentEdges.length < capacity) {
+            parentEdges = new long[capacity];
+        }
+        return parentEdges;
+    }
+
+    int[] backwardParents() {
+        if (backwardParents.length < capacity) {
+            backwardParents = new int[capacity];
+        }
+        return backwardParents;
+    }
+
+    long[] backwardEdges() {
+        if (backwardEdges.length < capacity) {
+            backwardEdges = new long[capacity];
+        }
+        return backwardEdges;
+    }
+
+    int[] queue() {
+        if (queue.length < capacity) {
+            queue = new int[capacity];
+        }
+        return queue;
+    }
+
+    int[] backwardQueue() {
+        if (backwardQueue.length < capacity) {
+            backwardQueue = new int[capacity];
+        }
+        return backwardQueue;
+    }
+
+    int[] slots() {
+        if (slots.length < capacity) {
+            slots = new int[capacity];
+        }
+        return slots;
+    }
+
+    double[] distances() {
+        if (distances.length < capacity) {
+            distances = new double[capacity];
+        }
+        return distances;
+    }
+
+    IndexedDoubleHeap heap() {
+        if (heap == null) {
+            heap = new IndexedDoubleHeap(capacity);
+        }
+        return heap;
+    }
+
+    boolean isVisited(int v) {
+        return forwardMarks[v] == epoch;
+    }
+
+    void visit(int v) {
+        if ((++visitedCount & ABORT_CHECK_MASK) == 0) {
+            checkAborted();
+        }
+        forwardMarks[v] = epoch;
+    }
+
+    boolean isVisitedBackward(int v) {
+        return backwardMarks[v] == epoch;
+    }
+
+    void visitBackward(int v) {
+        if ((++visitedCount & ABORT_CHECK_MASK) == 0) {
+            checkAborted();
+        }
+        backwardMarks[v] = epoch;
+    }
+
+    private void checkAborted() {
+        BooleanSupplier abort = owner.abort;
+        if (abort != null && abort.getAsBoolean()) {
+            throw new CancellationException("Search is aborted");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.natera.graph.topology;
+
+/**
+ * Read only view of the graph structure in terms of dense int ids. Vertices
+ * are numbered from 0 to {@link #vertexCount()} - 1. Edges of a vertex are
+ * addressed by their slot, which is a position in the list of the vertex edges,
+ * so an edge is referenced by the vertex, the slot and the direction packed
+ * into a long, see {@link #outgoing(int, int)} and {@link #ingoing(int, int)}.
+ * <p>
+ * Undirected graphs report every edge as both outgoing and ingoing.
+ */
+public interface Topology {
+    /**
+     * @return The number of vertices
+     */
+    int vertexCount();
+
+    /**
+     * @return The number of outgoing edges of the vertex
+     */
+    int outDegree(int v);
+
+    /**
+     * @return The vertex the outgoing edge in the slot leads to
+     */
+    int outTarget(int v, int slot);
+
+    /**
+     * @return The number of ingoing edges of the vertex
+     */
+    int inDegree(int v);
+
+    /**
+     * @return The vertex the ingoing edge in the slot comes from
+     */
+    int inSource(int v, int slot);
+
+    /**
+     * @return Reference to the outgoing edge of the vertex in the slot
+     */
+    static long outgoing(int v, int slot) {
+        return ((long) v << 32) | slot;
+    }
+
+    /**
+     * @return Reference to the ingoing edge of the vertex in the slot
+     */
+    static long ingoing(int v, int slot) {
+        return ((long) v << 32) | 0x80000000L | slot;
+    }
+
+    /**
+     * @return The vertex the referenced edge is kept by
+     */
+    static int vertexOf(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    /**
+     * @return The slot of the referenced edge
+     */
+    static int slotOf(long edge) {
+        return (int) edge & 0x7FFFFFFF;
+    }
+
+    /**
+     * @return true if the reference points to an ingoing edge
+     */
+    static boolean isIngoing(long edge) {
+        return (edge & 0x80000000L) != 0;
+    }
+}
@@ -0,0 +1,551 @@
+package com.natera.graph.topology;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import com.natera.graph.util.IndexedDoubleHeap;
+
+/**
+ * Traversal and path search algorithms over {@link Topology}. All of the
+ * algorithms are iterative and keep their state in primitive arrays indexed by
+ * vertex ids, these arrays are reused by the searches running on the same
+ * thread. Paths are returned as arrays of edge references ordered from the
+ * start vertex to the target one, or null if there is no path.
+ * <p>
+ * Same as the object graphs, a path from the vertex to itself is never found.
+ */
+public final class TopologySearch {
+
+    private TopologySearch() {
+    }
+
+    /**
+     * Walks through the vertices reachable from the start one in depth first
+     * order.
+     *
+     * @param topology The graph structure
+     * @param start    Vertex to start with
+     * @param visitor  Function to accept ids of visited vertices
+     */
+    public static void depthFirst(Topology topology, int start, IntConsumer visitor) {
+        SearchContext context = SearchContext.acquire(topology.vertexCount());
+        try {
+            int[] vertices = context.queue();
+            int[] slots = context.slots();
+            int size = 0;
+            visitor.accept(start);
+            context.visit(start);
+            vertices[size] = start;
+            slots[size++] = 0;
+            while (size > 0) {
+                int top = size - 1;
+                int v = vertices[top];
+                int degree = topology.outDegree(v);
+                int slot = slots[top];
+                while (slot < degree && context.isVisited(topology.outTarget(v, slot))) {
+                    slot++;
+                }
+                context.scannedCount += Math.min(slot + 1, degree) - slots[top];
+                if (slot == degree) {
+                    size--;
+                    continue;
+                }
+                slots[top] = slot + 1;
+                int next = topology.outTarget(v, slot);
+                visitor.accept(next);
+                context.visit(next);
+                vertices[size] = next;
+                slots[size++] = 0;
+            }
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Returns the first path found by the depth first search.
+     */
+    public static long[] depthFirstPath(Topology topology, int start, int target) {
+        SearchContext context = SearchContext.acquire(topology.vertexCount());
+        try {
+            int[] vertices = context.queue();
+            int[] slots = context.slots();
+            int size = 0;
+            context.visit(start);
+            vertices[size] = start;
+            slots[size++] = 0;
+            while (size > 0) {
+                int top = size - 1;
+                int v = vertices[top];
+                int degree = topology.outDegree(v);
+                int slot = slots[top];
+                while (slot < degree && context.isVisited(topology.outTarget(v, slot))) {
+                    slot++;
+                }
+                context.scannedCount += Math.min(slot + 1, degree) - slots[top];
+                if (slot == degree) {
+                    size--;
+                    continue;
+                }
+                slots[top] = slot + 1;
+                int next = topology.outTarget(v, slot);
+                if (next == target) {
+                    // every frame keeps the slot after the one it was left by
+                    long[] path = new long[size];
+                    for (int i = 0; i < size; i++) {
+                        path[i] = Topology.outgoing(vertices[i], slots[i] - 1);
+                    }
+                    return path;
+                }
+                context.visit(next);
+                vertices[size] = next;
+                slots[size++] = 0;
+            }
+            return null;
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Returns a path with the minimal number of edges found by the breadth first
+     * search.
+     */
+    public static long[] breadthFirstPath(Topology topology, int start, int target) {
+        if (start == target) {
+            return null;
+        }
+        SearchContext context = SearchContext.acquire(topology.vertexCount());
+        try {
+            int[] parents = context.parents();
+            long[] parentEdges = context.parentEdges();
+            int[] queue = context.queue();
+            int head = 0;
+            int tail = 0;
+            context.visit(start);
+            queue[tail++] = start;
+            while (head < tail) {
+                int v = queue[head++];
+                int degree = topology.outDegree(v);
+                for (int slot = 0; slot < degree; slot++) {
+                    context.scannedCount++;
+                    int next = topology.outTarget(v, slot);
+                    if (context.isVisited(next)) {
+                        continue;
+                    }
+                    context.visit(next);
+                    parents[next] = v;
+                    parentEdges[next] = Topology.outgoing(v, slot);
+                    if (next == target) {
+                        return restorePath(start, target, parents, parentEdges);
+                    }
+                    queue[tail++] = next;
+                }
+            }
+            return null;
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Returns a path with the minimal number of edges found by two breadth first
+     * searches running towards each other. Every step expands the whole level of
+     * the smaller frontier, the backward search follows ingoing edges.
+     */
+    public static long[] bidirectionalPath(Topology topology, int start, int target) {
+        if (start == target) {
+            return null;
+        }
+        SearchContext context = SearchContext.acquire(topology.vertexCount());
+        try {
+            int[] forwardQueue = context.queue();
+            int[] backwardQueue = context.backwardQueue();
+            int[] parents = context.parents();
+            long[] parentEdges = context.parentEdges();
+            int[] backwardParents = context.backwardParents();
+            long[] backwardEdges = context.backwardEdges();
+            context.prepareBackward();
+            int forwardHead = 0;
+            int forwardTail = 0;
+            int backwardHead = 0;
+            int backwardTail = 0;
+            context.visit(start);
+            context.visitBackward(target);
+            forwardQueue[forwardTail++] = start;
+            backwardQueue[backwardTail++] = target;
+            while (forwardHead < forwardTail && backwardHead < backwardTail) {
+                int meeting = -1;
+                if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+                    for (int levelEnd = forwardTail; forwardHead < levelEnd && meeting < 0;) {
+                        int v = forwardQueue[forwardHead++];
+                        int degree = topology.outDegree(v);
+                        for (int slot = 0; slot < degree; slot++) {
+                            context.scannedCount++;
+                            int next = topology.outTarget(v, slot);
+                            if (context.isVisited(next)) {
+                                continue;
+                            }
+                            context.visit(next);
+                            parents[next] = v;
+                            parentEdges[next] = Topology.outgoing(v, slot);
+                            if (context.isVisitedBackward(next)) {
+                                meeting = next;
+                                break;
+                            }
+                            forwardQueue[forwardTail++] = next;
+                        }
+                    }
+                } else {
+                    for (int levelEnd = backwardTail; backwardHead < levelEnd && meeting < 0;) {
+                        int v = backwardQueue[backwardHead++];
+                        int degree = topology.inDegree(v);
+                        for (int slot = 0; slot < degree; slot++) {
+                            context.scannedCount++;
+                            int next = topology.inSource(v, slot);
+                            if (context.isVisitedBackward(next)) {
+                                continue;
+                            }
+                            context.visitBackward(next);
+                            backwardParents[next] = v;
+                            backwardEdges[next] = Topology.ingoing(v, slot);
+                            if (context.isVisited(next)) {
+                                meeting = next;
+                                break;
+                            }
+                            backwardQueue[backwardTail++] = next;
+                        }
+                    }
+                }
+                if (meeting >= 0) {
+                    long[] head = restorePath(start, meeting, parents, parentEdges);
+                    int length = head.length;
+                    for (int v = meeting; v != target; v = backwardParents[v]) {
+                        length++;
+                    }
+                    long[] path = Arrays.copyOf(head, length);
+                    int i = head.length;
+                    for (int v = meeting; v != target; v = backwardParents[v]) {
+                        path[i++] = backwardEdges[v];
+                    }
+                    return path;
+                }
+            }
+            return null;
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Returns paths with the minimal number of edges from the start vertex to
+     * each of the targets found by a single breadth first search. The search
+     * stops as soon as all of the targets are reached.
+     *
+     * @return Paths in the order of the targets, null for the targets which are
+     *         not reachable or equal to the start vertex
+     */
+    public static long[][] breadthFirstPaths(Topology topology, int start, int[] targets) {
+        return breadthFirstPaths(topology, start, targets, false);
+    }
+
+    /**
+     * Returns paths with the minimal number of edges from each of the sources to
+     * the target vertex found by a single breadth first search following the
+     * ingoing edges from the target. The search stops as soon as all of the
+     * sources are reached.
+     *
+     * @return Paths in the order of the sources, null for the sources which can
+     *         not reach the target or are equal to it
+     */
+    public static long[][] breadthFirstPathsTo(Topology topology, int[] sources, int target) {
+        return breadthFirstPaths(topology, target, sources, true);
+    }
+
+    private static long[][] breadthFirstPaths(Topology topology, int start, int[] ends, boolean backward) {
+        long[][] paths = new long[ends.length][];
+        SearchContext context = SearchContext.acquire(topology.vertexCount());
+        try {
+            // the backward marks keep the not reached ends
+            context.prepareBackward();
+            int remaining = 0;
+            for (int end : ends) {
+                if (end != start && !context.isVisitedBackward(end)) {
+                    context.visitBackward(end);
+                    remaining++;
+                }
+            }
+            int[] parents = context.parents();
+            long[] parentEdges = context.parentEdges();
+            int[] queue = context.queue();
+            int head = 0;
+            int tail = 0;
+            context.visit(start);
+            queue[tail++] = start;
+            while (head < tail && remaining > 0) {
+                int v = queue[head++];
+                int degree = backward ? topology.inDegree(v) : topology.outDegree(v);
+                for (int slot = 0; slot < degree && remaining > 0; slot++) {
+                    context.scannedCount++;
+                    int next = backward ? topology.inSource(v, slot) : topology.outTarget(v, slot);
+                    if (context.isVisited(next)) {
+                        continue;
+                    }
+                    context.visit(next);
+                    parents[next] = v;
+                    parentEdges[next] = backward ? Topology.ingoing(v, slot) : Topology.outgoing(v, slot);
+                    if (context.isVisitedBackward(next)) {
+                        remaining--;
+                    }
+                    queue[tail++] = next;
+                }
+            }
+            for (int i = 0; i < ends.length; i++) {
+                int end = ends[i];
+                if (end == start || !context.isVisited(end)) {
+                    continue;
+                }
+                if (!backward) {
+                    paths[i] = restorePath(start, end, parents, parentEdges);
+                    continue;
+                }
+                // parents lead from the source towards the target
+                int length = 0;
+                for (int v = end; v != start; v = parents[v]) {
+                    length++;
+                }
+                long[] path = new long[length];
+                length = 0;
+                for (int v = end; v != start; v = parents[v]) {
+                    path[length++] = parentEdges[v];
+                }
+                paths[i] = path;
+            }
+            return paths;
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Returns the minimal numbers of edges from every source to every target.
+     * Sources are processed by the groups of 64 in a single breadth first search
+     * per group, every vertex keeps the bit mask of the sources which reached it,
+     * so a level of all of the searches of the group is a single pass over the
+     * frontier. The search of a group stops as soon as all of the targets are
+     * reached by all of the sources.
+     *
+     * @return Distances indexed by the source and the target, -1 for not reachable
+     *         targets and 0 for the target equal to the source
+     */
+    public static int[][] multiSourceDistances(Topology topology, int[] sources, int[] targets) {
+        int n = topology.vertexCount();
+        int[][] distances = new int[sources.length][targets.length];
+        for (int[] row : distances) {
+            Arrays.fill(row, -1);
+        }
+        // vertices map to the first of their indexes among the targets
+        int[] targetIndex = new int[n];
+        Arrays.fill(targetIndex, -1);
+        int distinctTargets = 0;
+        for (int i = 0; i < targets.length; i++) {
+            if (targetIndex[targets[i]] < 0) {
+                targetIndex[targets[i]] = i;
+                distinctTargets++;
+            }
+        }
+        long[] seen = new long[n];
+        long[] visit = new long[n];
+        long[] next = new long[n];
+        int[] frontier = new int[16];
+        int[] touched = new int[16];
+        for (int from = 0; from < sources.length; from += 64) {
+            int count = Math.min(64, sources.length - from);
+            long unresolved = (long) count * distinctTargets;
+            int frontierSize = 0;
+            for (int i = 0; i < count; i++) {
+                int source = sources[from + i];
+                if (seen[source] == 0) {
+                    frontier = append(frontier, frontierSize++, source);
+                }
+                seen[source] |= 1L << i;
+                visit[source] |= 1L << i;
+                if (targetIndex[source] >= 0) {
+                    distances[from + i][targetIndex[source]] = 0;
+                    unresolved--;
+                }
+            }
+            for (int level = 1; frontierSize > 0 && unresolved > 0; level++) {
+                int touchedSize = 0;
+                for (int f = 0; f < frontierSize; f++) {
+                    int v = frontier[f];
+                    long bits = visit[v];
+                    visit[v] = 0;
+                    int degree = topology.outDegree(v);
+                    for (int slot = 0; slot < degree; slot++) {
+                        int u = topology.outTarget(v, slot);
+                        long reached = bits & ~seen[u];
+                        if (reached != 0) {
+                            if (next[u] == 0) {
+                                touched = append(touched, touchedSize++, u);
+                            }
+                            next[u] |= reached;
+                        }
+                    }
+                }
+                frontierSize = 0;
+                for (int t = 0; t < touchedSize; t++) {
+                    int u = touched[t];
+                    long reached = next[u];
+                    next[u] = 0;
+                    seen[u] |= reached;
+                    visit[u] = reached;
+                    frontier = append(frontier, frontierSize++, u);
+                    if (targetIndex[u] >= 0) {
+                        for (long bits = reached; bits != 0; bits &= bits - 1) {
+                            distances[from + Long.numberOfTrailingZeros(bits)][targetIndex[u]] = level;
+                        }
+                        unresolved -= Long.bitCount(reached);
+                    }
+                }
+            }
+            Arrays.fill(seen, 0);
+            Arrays.fill(visit, 0);
+        }
+        for (int[] row : distances) {
+            for (int i = 0; i < targets.length; i++) {
+                row[i] = row[targetIndex[targets[i]]];
+            }
+        }
+        return distances;
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, size << 1);
+        }
+        array[size] = value;
+        return array;
+    }
+
+    /**
+     * Returns a path with the minimal total cost. Without heuristic it is
+     * Dijkstra's algorithm, otherwise A*. A vertex is queued again if a cheaper
+     * path to it is found after it was polled.
+     *
+     * @param weight    Function returning non negative cost of the outgoing edge
+     * @param heuristic Function estimating the cost between two vertices or null
+     * @throws IllegalArgumentException if the cost of a visited edge is negative
+     */
+    public static long[] cheapestPath(Topology topology, int start, int target, EdgeWeight weight,
+            VertexHeuristic heuristic) {
+        if (start == target) {
+            return null;
+        }
+        SearchContext context = SearchContext.acquire(topology.vertexCount());
+        try {
+            double[] distances = context.distances();
+            int[] parents = context.parents();
+            long[] parentEdges = context.parentEdges();
+            IndexedDoubleHeap queue = context.heap();
+            context.visit(start);
+            distances[start] = 0;
+            queue.put(start, heuristic == null ? 0 : heuristic.estimate(start, target));
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                if (v == target) {
+                    return restorePath(start, target, parents, parentEdges);
+                }
+                double distance = distances[v];
+                int degree = topology.outDegree(v);
+                for (int slot = 0; slot < degree; slot++) {
+                    context.scannedCount++;
+                    double cost = weight.weight(v, slot);
+                    if (!(cost >= 0)) {
+                        throw new IllegalArgumentException(
+                                String.format("Invalid cost %s of edge %d:%d", cost, v, slot));
+                    }
+                    int next = topology.outTarget(v, slot);
+                    double nextDistance = distance + cost;
+                    if (context.isVisited(next) && nextDistance >= distances[next]) {
+                        continue;
+                    }
+                    context.visit(next);
+                    distances[next] = nextDistance;
+                    parents[next] = v;
+                    parentEdges[next] = Topology.outgoing(v, slot);
+                    queue.put(next, nextDistance + (heuristic == null ? 0 : heuristic.estimate(next, target)));
+                }
+            }
+            return null;
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Runs the action checking the condition every 1024 vertices visited by the
+     * searches of the current thread. Once the condition holds the running search
+     * throws {@link CancellationException}, so a query over a graph being modified
+     * can be given up without waiting for it to complete.
+     *
+     * @param abort  Condition to abort the searches
+     * @param action Action running the searches
+     * @return The result of the action
+     */
+    public static <T> T abortable(BooleanSupplier abort, Supplier<T> action) {
+        BooleanSupplier previous = SearchContext.abortWhen(abort);
+        try {
+            return action.get();
+        } finally {
+            SearchContext.abortWhen(previous);
+        }
+    }
+
+    /**
+     * Drops the arrays kept for the searches of the current thread, the next
+     * search allocates them again. The arrays take from 12 bytes per vertex of
+     * the largest searched graph for depth first searches to more than 50 bytes
+     * for all kinds of searches, so a thread which will not search such a graph
+     * again may give the memory back.
+     */
+    public static void releaseThreadState() {
+        SearchContext.trim();
+    }
+
+    /**
+     * @return The total number of vertex visits made by the searches completed on
+     *         the current thread. Vertices reached by both directions of the
+     *         bidirectional search and vertices queued again by the cheapest path
+     *         search are counted every time.
+     */
+    public static long visitedVertices() {
+        return SearchContext.visitedTotal();
+    }
+
+    /**
+     * @return The total number of edges scanned by the searches completed on the
+     *         current thread
+     */
+    public static long scannedEdges() {
+        return SearchContext.scannedTotal();
+    }
+
+    /**
+     * Restores path by walking back the edges the vertices were reached by.
+     */
+    private static long[] restorePath(int start, int target, int[] parents, long[] parentEdges) {
+        int length = 0;
+        for (int v = target; v != start; v = parents[v]) {
+            length++;
+        }
+        long[] path = new long[length];
+        for (int v = target; v != start; v = parents[v]) {
+            path[--length] = parentEdges[v];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,9 @@
+package com.natera.graph.topology;
+
+/**
+ * Estimates the cost of the path between two vertices given by their ids.
+ */
+@FunctionalInterface
+public interface VertexHeuristic {
+    double estimate(int v, int target);
+}
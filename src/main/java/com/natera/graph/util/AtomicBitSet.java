@@ -0,0 +1,39 @@
+package com.natera.graph.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size set of bits which may be set concurrently. Bits are never
+ * cleared, {@link #trySet(int)} tells exactly one of the competing threads
+ * that it has set the bit.
+ */
+public final class AtomicBitSet {
+    private final AtomicLongArray words;
+
+    public AtomicBitSet(int size) {
+        words = new AtomicLongArray((size + 63) >>> 6);
+    }
+
+    public boolean get(int index) {
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets the bit.
+     *
+     * @return true if the bit was not set before
+     */
+    public boolean trySet(int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long value = words.get(word);
+            if ((value & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, value, value | mask)) {
+                return true;
+            }
+        }
+    }
+}
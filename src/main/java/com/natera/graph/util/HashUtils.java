@@ -0,0 +1,45 @@
+package com.natera.graph.util;
+
+/**
+ * Helpers shared by the open addressing hash maps.
+ */
+final class HashUtils {
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private HashUtils() {
+    }
+
+    /**
+     * Fibonacci hashing of the int key into a table of 2^(32 - shift) slots.
+     */
+    static int mix(int key, int shift) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Fibonacci hashing of the long key into a table of 2^(32 - shift) slots.
+     */
+    static int mix(long key, int shift) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (32 + shift));
+    }
+
+    /**
+     * @return Power of two table size keeping the expected number of entries
+     *         below the load factor
+     */
+    static int tableSize(int expectedSize) {
+        long capacity = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / 0.7));
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    /**
+     * @return The number of entries the table of the specified size may keep
+     */
+    static int threshold(int capacity) {
+        return (int) (capacity * 0.7);
+    }
+}
@@ -0,0 +1,167 @@
+package com.natera.graph.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min heap of int keys ordered by double priorities. Every key is a
+ * small non negative int, so the heap tracks the position of each key in a
+ * plain array and supports changing the priority of a queued key in
+ * logarithmic time. Neither keys nor priorities are boxed.
+ */
+public class IndexedDoubleHeap {
+    private static final int ABSENT = -1;
+
+    private int[] heap;
+    private int[] positions;
+    private double[] priorities;
+    private int size;
+
+    /**
+     * @param capacity Expected number of distinct keys, the heap grows if needed
+     */
+    public IndexedDoubleHeap(int capacity) {
+        capacity = Math.max(capacity, 16);
+        heap = new int[capacity];
+        positions = new int[capacity];
+        priorities = new double[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return true if the key is currently queued
+     */
+    public boolean contains(int key) {
+        return key < positions.length && positions[key] != ABSENT;
+    }
+
+    /**
+     * @return The priority of the queued key
+     */
+    public double priority(int key) {
+        return priorities[key];
+    }
+
+    /**
+     * Adds the key to the heap or changes its priority if it is already queued.
+     *
+     * @param key      Non negative key
+     * @param priority The new priority of the key
+     */
+    public void put(int key, double priority) {
+        if (key >= positions.length) {
+            growKeys(key + 1);
+        }
+        int position = positions[key];
+        if (position == ABSENT) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size << 1);
+            }
+            priorities[key] = priority;
+            heap[size] = key;
+            positions[key] = size;
+            siftUp(size++);
+        } else {
+            double previous = priorities[key];
+            priorities[key] = priority;
+            if (priority < previous) {
+                siftUp(position);
+            } else {
+                siftDown(position);
+            }
+        }
+    }
+
+    /**
+     * @return The key with the minimal priority without removing it
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return heap[0];
+    }
+
+    /**
+     * Removes the key with the minimal priority.
+     *
+     * @return The removed key
+     */
+    public int poll() {
+        int key = peek();
+        positions[key] = ABSENT;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return key;
+    }
+
+    /**
+     * Removes all of the keys keeping the allocated arrays.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int key = heap[position];
+        double priority = priorities[key];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentKey = heap[parent];
+            if (priorities[parentKey] <= priority) {
+                break;
+            }
+            heap[position] = parentKey;
+            positions[parentKey] = position;
+            position = parent;
+        }
+        heap[position] = key;
+        positions[key] = position;
+    }
+
+    private void siftDown(int position) {
+        int key = heap[position];
+        double priority = priorities[key];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = (position << 1) + 1;
+            int right = child + 1;
+            if (right < size && priorities[heap[right]] < priorities[heap[child]]) {
+                child = right;
+            }
+            int childKey = heap[child];
+            if (priority <= priorities[childKey]) {
+                break;
+            }
+            heap[position] = childKey;
+            positions[childKey] = position;
+            position = child;
+        }
+        heap[position] = key;
+        positions[key] = position;
+    }
+
+    private void growKeys(int minCapacity) {
+        int capacity = Math.max(minCapacity, positions.length << 1);
+        int previous = positions.length;
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, previous, capacity, ABSENT);
+        priorities = Arrays.copyOf(priorities, capacity);
+    }
+}
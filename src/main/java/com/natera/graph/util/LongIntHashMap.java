@@ -0,0 +1,119 @@
+package com.natera.graph.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to non negative int values. Keys and
+ * values are kept in two plain arrays probed linearly, so the map allocates
+ * nothing but these arrays and never boxes its content.
+ */
+public class LongIntHashMap {
+    /**
+     * Returned by {@link #get(long)} if there is no mapping for the key.
+     */
+    public static final int NO_VALUE = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int threshold;
+    private int shift;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize The number of mappings to be kept without resizing
+     */
+    public LongIntHashMap(int expectedSize) {
+        allocate(HashUtils.tableSize(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The value mapped to the key or {@link #NO_VALUE}
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = HashUtils.mix(key, shift);; slot = (slot + 1) & mask) {
+            int value = values[slot];
+            if (value == NO_VALUE || keys[slot] == key) {
+                return value;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Maps the key to the value if the key is not mapped yet.
+     *
+     * @param key   The key
+     * @param value Non negative value
+     * @return The value the key was already mapped to or {@link #NO_VALUE} if the
+     *         new mapping was added
+     */
+    public int putIfAbsent(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        int mask = keys.length - 1;
+        int slot = HashUtils.mix(key, shift);
+        for (; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash();
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Grows the table in advance to keep the expected number of mappings.
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = HashUtils.tableSize(expectedSize);
+        if (capacity > keys.length) {
+            resize(capacity);
+        }
+    }
+
+    private void rehash() {
+        resize(keys.length << 1);
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                int slot = HashUtils.mix(oldKeys[i], shift);
+                while (values[slot] != NO_VALUE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        threshold = HashUtils.threshold(capacity);
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    }
+}
@@ -0,0 +1,86 @@
+package com.natera.graph.util;
+
+/**
+ * Immutable array with structural sharing. Elements are kept in the leaves of
+ * a 32-way trie, so both replacing and appending an element copy only the path
+ * from the root to the leaf and the rest of the trie is shared with the
+ * previous version.
+ *
+ * @param <T> the element type
+ */
+public final class PersistentArray<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentArray<Object> EMPTY = new PersistentArray<>(new Object[WIDTH], 0, 0);
+
+    private final Object[] root;
+    private final int shift;
+    private final int size;
+
+    private PersistentArray(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentArray<T> empty() {
+        return (PersistentArray<T>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index);
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return (T) node[index & MASK];
+    }
+
+    /**
+     * @return New version with the element replaced
+     */
+    public PersistentArray<T> set(int index, T value) {
+        checkIndex(index);
+        return new PersistentArray<>(set(root, shift, index, value), shift, size);
+    }
+
+    /**
+     * @return New version with the element added to the end
+     */
+    public PersistentArray<T> append(T value) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Array is full");
+        }
+        if (size == 1L << (shift + BITS)) {
+            // the trie is full, the old root becomes the first child of the new one
+            Object[] newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            return new PersistentArray<>(set(newRoot, shift + BITS, size, value), shift + BITS, size + 1);
+        }
+        return new PersistentArray<>(set(root, shift, size, value), shift, size + 1);
+    }
+
+    private static Object[] set(Object[] node, int shift, int index, Object value) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        if (shift == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int child = (index >>> shift) & MASK;
+            copy[child] = set((Object[]) copy[child], shift - BITS, index, value);
+        }
+        return copy;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, size: %d", index, size));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.natera.graph.util;
+
+import java.util.Arrays;
+
+/**
+ * Disjoint sets of dense int elements. Sets are merged by size, so the depth
+ * of every tree is logarithmic, and the paths are compressed by
+ * {@link #union(int, int)} only. Lookups do not modify the structure and may
+ * run concurrently with each other.
+ */
+public final class UnionFind {
+    private int[] parents = new int[16];
+    private int[] sizes = new int[16];
+    private int size;
+    private int setCount;
+
+    /**
+     * Adds the element forming a set of its own.
+     *
+     * @return The new element
+     */
+    public int add() {
+        ensureCapacity(size + 1);
+        parents[size] = size;
+        sizes[size] = 1;
+        setCount++;
+        return size++;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > parents.length) {
+            capacity = Math.max(capacity, parents.length + (parents.length >> 1));
+            parents = Arrays.copyOf(parents, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+    }
+
+    /**
+     * @return The representative of the set of the element
+     */
+    public int find(int element) {
+        while (parents[element] != element) {
+            element = parents[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets of the elements.
+     *
+     * @return true if the elements were in different sets
+     */
+    public boolean union(int a, int b) {
+        int rootA = compress(a);
+        int rootB = compress(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (sizes[rootA] < sizes[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parents[rootB] = rootA;
+        sizes[rootA] += sizes[rootB];
+        setCount--;
+        return true;
+    }
+
+    /**
+     * Finds the representative and makes every element of the path its child.
+     */
+    private int compress(int element) {
+        int root = find(element);
+        while (parents[element] != root) {
+            int next = parents[element];
+            parents[element] = root;
+            element = next;
+        }
+        return root;
+    }
+
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * @return The number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of disjoint sets
+     */
+    public int setCount() {
+        return setCount;
+    }
+}
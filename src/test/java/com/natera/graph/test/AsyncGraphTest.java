@@ -0,0 +1,87 @@
+package com.natera.graph.test;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.natera.graph.AsyncGraph;
+import com.natera.graph.ConcurrentGraphWrapper;
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.PathStrategy;
+import com.natera.graph.metrics.GraphMetrics;
+
+import junit.framework.TestCase;
+
+public class AsyncGraphTest extends TestCase {
+
+    public void testQueries() throws Exception {
+        Vertex[] chain = new Vertex[100];
+        ConcurrentGraphWrapper<Vertex, Edge> graph = chain(chain);
+        try (AsyncGraph<Vertex, Edge> async = new AsyncGraph<>(graph)) {
+            List<CompletableFuture<List<Edge>>> futures = new ArrayList<>();
+            for (int i = 1; i < chain.length; i++) {
+                futures.add(async.getPathAsync(chain[0], chain[i], PathStrategy.BIDIRECTIONAL));
+            }
+            for (int i = 1; i < chain.length; i++) {
+                assertEquals(i, futures.get(i - 1).get(10, TimeUnit.SECONDS).size());
+            }
+
+            List<Map.Entry<Vertex, Vertex>> pairs = Arrays.asList(new SimpleImmutableEntry<>(chain[0], chain[3]),
+                    new SimpleImmutableEntry<>(chain[5], chain[1]), new SimpleImmutableEntry<>(chain[2], chain[4]));
+            List<List<Edge>> paths = async.getPaths(pairs).get(10, TimeUnit.SECONDS);
+            assertEquals(3, paths.get(0).size());
+            assertNull(paths.get(1));
+            assertEquals(2, paths.get(2).size());
+
+            CompletableFuture<Object> failed = async.submit(g -> {
+                throw new IllegalStateException("failed query");
+            });
+            try {
+                failed.get(10, TimeUnit.SECONDS);
+                fail("Failure of the query should be passed to the future");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    /**
+     * Queries queued while the draining task is not started yet should run under
+     * a single lock acquisition
+     */
+    public void testBatching() {
+        Vertex[] chain = new Vertex[10];
+        ConcurrentGraphWrapper<Vertex, Edge> graph = chain(chain);
+        GraphMetrics metrics = new GraphMetrics();
+        graph.setListener(metrics);
+        List<Runnable> tasks = new ArrayList<>();
+        AsyncGraph<Vertex, Edge> async = new AsyncGraph<>(graph, tasks::add, 1);
+        List<CompletableFuture<List<Edge>>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(async.getPathAsync(chain[0], chain[9]));
+        }
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(1, metrics.getReadLockAcquisitions());
+        for (CompletableFuture<List<Edge>> future : futures) {
+            assertEquals(9, future.join().size());
+        }
+    }
+
+    private ConcurrentGraphWrapper<Vertex, Edge> chain(Vertex[] chain) {
+        DirectedGraph<Vertex, Edge> graph = new DirectedGraph<>();
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(chain[i]);
+            if (i > 0) {
+                graph.addEdge(chain[i - 1], chain[i], new Edge(i - 1 + " -> " + i));
+            }
+        }
+        return new ConcurrentGraphWrapper<>(graph, false);
+    }
+}
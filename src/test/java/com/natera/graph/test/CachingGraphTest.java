@@ -0,0 +1,78 @@
+package com.natera.graph.test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.natera.graph.CachingGraph;
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.PathStrategy;
+
+import junit.framework.TestCase;
+
+public class CachingGraphTest extends TestCase {
+
+    public void testHitsAndEviction() {
+        CachingGraph<Vertex, Edge> graph = new CachingGraph<>(new DirectedGraph<Vertex, Edge>(), 2);
+        Vertex[] vertices = vertices(graph, 3);
+        Edge e01 = new Edge("0 -> 1");
+        Edge e12 = new Edge("1 -> 2");
+        graph.addEdge(vertices[0], vertices[1], e01);
+        graph.addEdge(vertices[1], vertices[2], e12);
+
+        List<Edge> path = graph.getPath(vertices[0], vertices[2]);
+        assertEquals(Arrays.asList(e01, e12), path);
+        assertSame(path, graph.getPath(vertices[0], vertices[2]));
+        assertEquals(1, graph.hitCount());
+        assertEquals(1, graph.missCount());
+
+        // strategy is a part of the key
+        assertEquals(path, graph.getPath(vertices[0], vertices[2], PathStrategy.BREADTH_FIRST));
+        assertEquals(2, graph.missCount());
+        assertEquals(2, graph.size());
+
+        // the least recently used path is evicted
+        graph.getPath(vertices[0], vertices[2]);
+        graph.getPath(vertices[0], vertices[1]);
+        assertEquals(2, graph.size());
+        assertSame(path, graph.getPath(vertices[0], vertices[2]));
+        assertEquals(3, graph.hitCount());
+        graph.getPath(vertices[0], vertices[2], PathStrategy.BREADTH_FIRST);
+        assertEquals(4, graph.missCount());
+
+        // queries with absent vertices are not cached
+        graph.getPath(vertices[0], new Vertex("non-existent-vertex"));
+        graph.getPath(vertices[0], new Vertex("non-existent-vertex"));
+        assertEquals(6, graph.missCount());
+    }
+
+    /**
+     * Checks if a new edge drops the cached misses of the joined components only
+     */
+    public void testMissInvalidation() {
+        CachingGraph<Vertex, Edge> graph = new CachingGraph<>(new DirectedGraph<Vertex, Edge>(), 100);
+        Vertex[] vertices = vertices(graph, 6);
+        graph.addEdge(vertices[0], vertices[1], new Edge("0 -> 1"));
+        graph.addEdge(vertices[2], vertices[3], new Edge("2 -> 3"));
+
+        assertNull(graph.getPath(vertices[0], vertices[3]));
+        assertNull(graph.getPath(vertices[4], vertices[5]));
+        assertNull(graph.getPath(vertices[1], vertices[0]));
+        assertEquals(3, graph.size());
+
+        Edge e12 = new Edge("1 -> 2");
+        graph.addEdge(vertices[1], vertices[2], e12);
+        assertEquals(1, graph.size());
+        assertEquals(3, graph.getPath(vertices[0], vertices[3]).size());
+        assertNull(graph.getPath(vertices[4], vertices[5]));
+        assertEquals(1, graph.hitCount());
+    }
+
+    private Vertex[] vertices(CachingGraph<Vertex, Edge> graph, int count) {
+        Vertex[] vertices = new Vertex[count];
+        for (int i = 0; i < count; i++) {
+            vertices[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(vertices[i]);
+        }
+        return vertices;
+    }
+}
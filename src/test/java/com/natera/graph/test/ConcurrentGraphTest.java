@@ -0,0 +1,127 @@
+package com.natera.graph.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.natera.graph.ConcurrentGraph;
+import com.natera.graph.PathStrategy;
+
+import junit.framework.TestCase;
+
+public class ConcurrentGraphTest extends TestCase {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int CHAIN_LENGTH = 2000;
+
+    public void testStress() throws Exception {
+        stress(new ConcurrentGraph<Vertex, Edge>(false));
+        stress(new ConcurrentGraph<Vertex, Edge>(true));
+    }
+
+    /**
+     * Every writer builds its own chain and links it to the vertices of the other
+     * chains, while readers search paths along the chains and check if every
+     * found path is connected
+     */
+    private void stress(ConcurrentGraph<Vertex, Edge> graph) throws Exception {
+        Vertex[][] chains = new Vertex[WRITERS][CHAIN_LENGTH];
+        for (int w = 0; w < WRITERS; w++) {
+            for (int i = 0; i < CHAIN_LENGTH; i++) {
+                chains[w][i] = new Vertex(w + "." + i);
+            }
+        }
+        Map<Edge, Vertex[]> ends = new ConcurrentHashMap<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    Random random = new Random(writer);
+                    Vertex[] chain = chains[writer];
+                    for (int i = 0; i < CHAIN_LENGTH; i++) {
+                        assertTrue(graph.addVertex(chain[i]));
+                        if (i > 0) {
+                            addEdge(graph, ends, chain[i - 1], chain[i], new Edge(writer + ":" + i));
+                        }
+                        // the other vertex may be not added yet
+                        Vertex other = chains[random.nextInt(WRITERS)][random.nextInt(i + 1)];
+                        addEdge(graph, ends, chain[i], other, new Edge(writer + "~" + i));
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                int reader = r;
+                readers.add(executor.submit(() -> {
+                    Random random = new Random(-reader);
+                    PathStrategy[] strategies = PathStrategy.values();
+                    while (writing.get()) {
+                        Vertex[] chain = chains[random.nextInt(WRITERS)];
+                        Vertex start = chain[random.nextInt(CHAIN_LENGTH)];
+                        Vertex target = chain[random.nextInt(CHAIN_LENGTH)];
+                        PathStrategy strategy = strategies[random.nextInt(strategies.length)];
+                        checkPath(graph, ends, start, target, graph.getPath(start, target, strategy));
+                        checkPath(graph, ends, start, target, graph.getShortestPath(start, target, e -> 1));
+                        graph.traverse(start, v -> assertNotNull(v));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(WRITERS * CHAIN_LENGTH, graph.vertexCount());
+        assertEquals(ends.size(), graph.edgeCount());
+        for (Vertex[] chain : chains) {
+            List<Edge> path = graph.getPath(chain[0], chain[CHAIN_LENGTH - 1], PathStrategy.BREADTH_FIRST);
+            assertNotNull(path);
+            checkPath(graph, ends, chain[0], chain[CHAIN_LENGTH - 1], path);
+        }
+    }
+
+    private void addEdge(ConcurrentGraph<Vertex, Edge> graph, Map<Edge, Vertex[]> ends, Vertex src, Vertex dst,
+            Edge e) {
+        ends.put(e, new Vertex[] { src, dst });
+        if (!graph.addEdge(src, dst, e)) {
+            ends.remove(e);
+        }
+    }
+
+    private void checkPath(ConcurrentGraph<Vertex, Edge> graph, Map<Edge, Vertex[]> ends, Vertex start,
+            Vertex target, List<Edge> path) {
+        if (path == null) {
+            return;
+        }
+        Vertex v = start;
+        for (Edge e : path) {
+            Vertex[] edgeEnds = ends.get(e);
+            if (edgeEnds[0] == v) {
+                v = edgeEnds[1];
+            } else {
+                assertFalse("Edge " + e + " is passed backward", graph.isDirected());
+                assertSame(v, edgeEnds[1]);
+                v = edgeEnds[0];
+            }
+        }
+        assertSame(target, v);
+    }
+}
@@ -0,0 +1,126 @@
+package com.natera.graph.test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.natera.graph.ConcurrentGraphWrapper;
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.Graph;
+import com.natera.graph.PathStrategy;
+import com.natera.graph.UndirectedGraph;
+import com.natera.graph.topology.TopologySearch;
+
+import junit.framework.TestCase;
+
+public class ConcurrentGraphWrapperTest extends TestCase {
+    private static final int READERS = 4;
+    private static final int CHAIN_LENGTH = 500;
+    private static final int ADDED = 20000;
+
+    public void testOptimisticReads() throws Exception {
+        optimisticReads(ConcurrentGraphWrapper.optimistic(new UndirectedGraph<Vertex, Edge>()));
+        optimisticReads(ConcurrentGraphWrapper.optimistic(new DirectedGraph<Vertex, Edge>()));
+    }
+
+    /**
+     * Optimistic reads are bounded by aborting their searches once the condition
+     * holds
+     */
+    public void testAbortedSearch() {
+        UndirectedGraph<Vertex, Edge> graph = new UndirectedGraph<>();
+        Vertex[] chain = new Vertex[5000];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(chain[i]);
+            if (i > 0) {
+                graph.addEdge(chain[i - 1], chain[i], new Edge(i - 1 + " -> " + i));
+            }
+        }
+        AtomicInteger visited = new AtomicInteger();
+        try {
+            TopologySearch.abortable(() -> true, () -> {
+                graph.traverse(chain[0], v -> visited.incrementAndGet());
+                return null;
+            });
+            fail("Search should be aborted");
+        } catch (CancellationException e) {
+            assertTrue(visited.get() < chain.length);
+        }
+        // the condition is dropped after the action
+        visited.set(0);
+        graph.traverse(chain[0], v -> visited.incrementAndGet());
+        assertEquals(chain.length, visited.get());
+        assertEquals(chain.length - 1, TopologySearch.abortable(() -> false,
+                () -> graph.getPath(chain[0], chain[chain.length - 1])).size());
+    }
+
+    /**
+     * The writer grows the graph from the end of a chain, so the maps and the
+     * arrays of the graph are resized under the optimistic readers, which search
+     * paths along the chain. Traversals run under the read lock, the one at the
+     * end checks that every vertex is passed once
+     */
+    private void optimisticReads(Graph<Vertex, Edge> graph) throws Exception {
+        Vertex[] chain = new Vertex[CHAIN_LENGTH];
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            chain[i] = new Vertex("chain." + i);
+            graph.addVertex(chain[i]);
+            if (i > 0) {
+                graph.addEdge(chain[i - 1], chain[i], new Edge(chain[i - 1] + " -> " + chain[i]));
+            }
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(READERS + 1);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                Random random = new Random(r);
+                readers.add(pool.submit(() -> {
+                    int queries = 0;
+                    while (writing.get() || queries == 0) {
+                        Vertex target = chain[1 + random.nextInt(CHAIN_LENGTH - 1)];
+                        List<Edge> path = graph.getPath(chain[0], target, PathStrategy.BREADTH_FIRST);
+                        assertNotNull(path);
+                        assertEquals(Integer.parseInt(target.getName().substring(6)), path.size());
+                        queries++;
+                    }
+                    return queries;
+                }));
+            }
+            Future<?> writer = pool.submit(() -> {
+                Random random = new Random(42);
+                List<Vertex> added = new ArrayList<>();
+                added.add(chain[CHAIN_LENGTH - 1]);
+                for (int i = 0; i < ADDED; i++) {
+                    Vertex v = new Vertex("added." + i);
+                    Vertex parent = added.get(random.nextInt(added.size()));
+                    graph.addVertex(v);
+                    graph.addEdge(parent, v, new Edge(parent + " -> " + v));
+                    added.add(v);
+                }
+                writing.set(false);
+            });
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                // rethrows the assertion failures and the exceptions of the readers
+                assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            writing.set(false);
+            pool.shutdownNow();
+        }
+        Set<Vertex> visited = new HashSet<>();
+        graph.traverse(chain[0], v -> assertTrue("Vertex is passed twice: " + v, visited.add(v)));
+        assertEquals(CHAIN_LENGTH + ADDED, visited.size());
+    }
+}
@@ -0,0 +1,80 @@
+package com.natera.graph.test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.EdgeListLoader;
+import com.natera.graph.EdgeListLoader.Statistics;
+import com.natera.graph.PathStrategy;
+import com.natera.graph.UndirectedGraph;
+
+import junit.framework.TestCase;
+
+public class EdgeListLoaderTest extends TestCase {
+
+    public void testEdgeList() throws IOException {
+        int size = 2000;
+        int edges = 20000;
+        Path file = Files.createTempFile("edges", ".txt");
+        Random random = new Random(11);
+        int[] sources = new int[edges];
+        int[] targets = new int[edges];
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("# generated edge list\n");
+                for (int e = 0; e < edges; e++) {
+                    sources[e] = random.nextInt(size);
+                    targets[e] = random.nextInt(size);
+                    writer.write(sources[e] + (e % 2 == 0 ? "\t" : "   ") + targets[e] + "\r\n");
+                }
+                writer.write("broken line\n\n");
+            }
+            ForkJoinPool pool = new ForkJoinPool(4);
+            DirectedGraph<Integer, Long> graph = new DirectedGraph<>();
+            // factories are called by the parsing tasks concurrently
+            AtomicLong ids = new AtomicLong();
+            // small chunks to cut the file into many pieces
+            Statistics statistics = EdgeListLoader
+                    .<Integer, Long>edgeList(row -> row.getInt(0), row -> row.getInt(1), row -> ids.getAndIncrement())
+                    .chunkSize(4096).pool(pool).load(file, graph);
+            pool.shutdown();
+
+            assertEquals(edges + 1, statistics.rows());
+            assertEquals(edges, statistics.edges());
+            assertEquals(1, statistics.skipped());
+            assertTrue(statistics.rowsPerSecond() > 0);
+            for (int e = 0; e < 100; e++) {
+                assertTrue(graph.getPath(sources[e], targets[e]) != null || sources[e] == targets[e]);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testCsv() throws IOException {
+        Path file = Files.createTempFile("edges", ".csv");
+        try {
+            Files.write(file, Arrays.asList("from,to,name", "a,b,a-b", "b,c,b-c", "c,d,", "d,-12,d-x"),
+                    StandardCharsets.UTF_8);
+            UndirectedGraph<String, String> graph = new UndirectedGraph<>();
+            Statistics statistics = EdgeListLoader.<String, String>csv(row -> row.getString(0),
+                    row -> row.getString(1), row -> row.getString(2).isEmpty() ? null : row.getString(2))
+                    .load(file, graph);
+            assertEquals(4, statistics.rows());
+            assertEquals(3, statistics.edges());
+            assertEquals(1, statistics.skipped());
+            assertEquals(Arrays.asList("a-b", "b-c"), graph.getPath("a", "c", PathStrategy.BREADTH_FIRST));
+            assertEquals(Arrays.asList("d-x"), graph.getPath("-12", "d"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
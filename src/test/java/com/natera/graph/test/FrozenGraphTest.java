@@ -0,0 +1,253 @@
+package com.natera.graph.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import com.natera.graph.AbstractGraph;
+import com.natera.graph.Codec;
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.FrozenGraph;
+import com.natera.graph.PathStrategy;
+import com.natera.graph.UndirectedGraph;
+
+import junit.framework.TestCase;
+
+public class FrozenGraphTest extends TestCase {
+
+    public void testSearchPath() {
+        for (PathStrategy strategy : PathStrategy.values()) {
+            searchPaths(new UndirectedGraph<Vertex, Edge>(), strategy);
+            searchPaths(new DirectedGraph<Vertex, Edge>(), strategy);
+        }
+    }
+
+    public void testDirection() {
+        Vertex[] chain = new Vertex[5];
+        FrozenGraph<Vertex, Edge> directed = chain(new DirectedGraph<Vertex, Edge>(), chain).freeze();
+        FrozenGraph<Vertex, Edge> undirected = chain(new UndirectedGraph<Vertex, Edge>(), chain).freeze();
+        assertTrue(directed.isDirected());
+        assertFalse(undirected.isDirected());
+
+        for (PathStrategy strategy : PathStrategy.values()) {
+            assertEquals(4, directed.getPath(chain[0], chain[4], strategy).size());
+            assertNull(directed.getPath(chain[4], chain[0], strategy));
+            List<Edge> path = undirected.getPath(chain[4], chain[0], strategy);
+            assertEquals(4, path.size());
+            assertEquals("3 -> 4", path.get(0).getName());
+            assertEquals("0 -> 1", path.get(3).getName());
+        }
+        assertEquals(4, directed.getShortestPath(chain[0], chain[4], e -> 1).size());
+        assertNull(directed.getShortestPath(chain[4], chain[0], e -> 1));
+        assertEquals(4, undirected.getShortestPath(chain[4], chain[0], e -> 1, (v1, v2) -> 0).size());
+
+        int[] count = new int[1];
+        directed.traverse(chain[2], v -> count[0]++);
+        assertEquals(3, count[0]);
+        count[0] = 0;
+        undirected.traverse(chain[2], v -> count[0]++);
+        assertEquals(5, count[0]);
+    }
+
+    /**
+     * Frozen graph keeps the ids and the slots, so the searches return the same
+     * results as on the source graph, parallel edges and loops included
+     */
+    public void testSameOrder() {
+        sameOrder(new DirectedGraph<String, Long>());
+        sameOrder(new UndirectedGraph<String, Long>());
+    }
+
+    public void testSnapshot() throws IOException {
+        Path file = Files.createTempFile("graph", ".snapshot");
+        try {
+            snapshot(new DirectedGraph<String, Long>(), file);
+            snapshot(new UndirectedGraph<String, Long>(), file);
+
+            Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+            try {
+                FrozenGraph.load(file, Codec.STRING, Codec.LONG);
+                fail("Invalid file should not be loaded");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void sameOrder(AbstractGraph<String, Long> graph) {
+        int size = 300;
+        Random random = new Random(11);
+        for (int i = 0; i < size; i++) {
+            graph.addVertex("v" + i);
+        }
+        for (long e = 0; e < size * 2; e++) {
+            String src = "v" + random.nextInt(size);
+            graph.addEdge(src, random.nextInt(10) == 0 ? src : "v" + random.nextInt(size), e);
+            if (random.nextInt(10) == 0) {
+                graph.addEdge(src, "v" + random.nextInt(size), ++e);
+            }
+        }
+        FrozenGraph<String, Long> frozen = graph.freeze();
+        assertEquals(size, frozen.vertexCount());
+        for (int v = 0; v < size; v++) {
+            assertEquals(v, frozen.getVertexId(graph.getVertex(v)));
+            assertEquals(graph.outDegree(v), frozen.outDegree(v));
+            for (int slot = 0; slot < graph.outDegree(v); slot++) {
+                assertEquals(graph.outTarget(v, slot), frozen.outTarget(v, slot));
+            }
+            assertEquals(graph.inDegree(v), frozen.inDegree(v));
+            for (int slot = 0; slot < graph.inDegree(v); slot++) {
+                assertEquals(graph.inSource(v, slot), frozen.inSource(v, slot));
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            String v1 = "v" + random.nextInt(size);
+            String v2 = "v" + random.nextInt(size);
+            for (PathStrategy strategy : PathStrategy.values()) {
+                assertEquals(graph.getPath(v1, v2, strategy), frozen.getPath(v1, v2, strategy));
+            }
+            assertEquals(graph.getShortestPath(v1, v2, e -> e % 7), frozen.getShortestPath(v1, v2, e -> e % 7));
+        }
+    }
+
+    private void snapshot(AbstractGraph<String, Long> graph, Path file) throws IOException {
+        int size = 1000;
+        Random random = new Random(7);
+        for (int i = 0; i < size; i++) {
+            graph.addVertex("v" + i);
+        }
+        for (long e = 0; e < size * 3; e++) {
+            graph.addEdge("v" + random.nextInt(size), "v" + random.nextInt(size), e);
+        }
+        FrozenGraph<String, Long> frozen = graph.freeze();
+        frozen.save(file, Codec.STRING, Codec.LONG);
+        FrozenGraph<String, Long> loaded = FrozenGraph.load(file, Codec.STRING, Codec.LONG);
+
+        assertEquals(frozen.isDirected(), loaded.isDirected());
+        assertEquals(frozen.vertexCount(), loaded.vertexCount());
+        assertEquals(frozen.edgeCount(), loaded.edgeCount());
+        for (int v = 0; v < size; v++) {
+            assertEquals(frozen.getVertex(v), loaded.getVertex(v));
+            assertEquals(v, loaded.getVertexId(frozen.getVertex(v)));
+            assertEquals(frozen.outDegree(v), loaded.outDegree(v));
+            assertEquals(frozen.inDegree(v), loaded.inDegree(v));
+            for (int slot = 0; slot < frozen.outDegree(v); slot++) {
+                assertEquals(frozen.outTarget(v, slot), loaded.outTarget(v, slot));
+            }
+            for (int slot = 0; slot < frozen.inDegree(v); slot++) {
+                assertEquals(frozen.inSource(v, slot), loaded.inSource(v, slot));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            String v1 = "v" + random.nextInt(size);
+            String v2 = "v" + random.nextInt(size);
+            for (PathStrategy strategy : PathStrategy.values()) {
+                assertEquals(frozen.getPath(v1, v2, strategy), loaded.getPath(v1, v2, strategy));
+            }
+        }
+
+        // header: magic, version, direction, vertices, edges, adjacency length
+        byte[] valid = Files.readAllBytes(file);
+        assertCorrupted(file, valid, 12, 1 << 28);
+        assertCorrupted(file, valid, 16, -1);
+        assertCorrupted(file, valid, 20, Integer.MAX_VALUE);
+        // decreasing offset and the target id out of range
+        assertCorrupted(file, valid, 28, -1);
+        assertCorrupted(file, valid, 24 + (size + 1) * 4, size + 5);
+    }
+
+    private void assertCorrupted(Path file, byte[] valid, int offset, int value) throws IOException {
+        byte[] bytes = valid.clone();
+        ByteBuffer.wrap(bytes).putInt(offset, value);
+        Files.write(file, bytes);
+        try {
+            FrozenGraph.load(file, Codec.STRING, Codec.LONG);
+            fail("Corrupted snapshot should not be loaded");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    public void testImmutability() {
+        AbstractGraph<Vertex, Edge> graph = chain(new DirectedGraph<Vertex, Edge>(), new Vertex[3]);
+        FrozenGraph<Vertex, Edge> frozen = graph.freeze();
+        assertEquals(3, frozen.vertexCount());
+        assertEquals(2, frozen.edgeCount());
+        try {
+            frozen.addVertex(new Vertex("new"));
+            fail("Frozen graph should not be modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        // modifications of the source graph are not visible
+        Vertex v = new Vertex("new");
+        graph.addVertex(v);
+        assertEquals(-1, frozen.getVertexId(v));
+        assertNull(frozen.getPath(v, v));
+    }
+
+    private AbstractGraph<Vertex, Edge> chain(AbstractGraph<Vertex, Edge> graph, Vertex[] chain) {
+        for (int i = 0; i < chain.length; i++) {
+            if (chain[i] == null) {
+                chain[i] = new Vertex(String.valueOf(i));
+            }
+            graph.addVertex(chain[i]);
+            if (i > 0) {
+                graph.addEdge(chain[i - 1], chain[i], new Edge(chain[i - 1] + " -> " + chain[i]));
+            }
+        }
+        return graph;
+    }
+
+    private void searchPaths(AbstractGraph<Vertex, Edge> graph, PathStrategy strategy) {
+        Vertex v1 = new Vertex("1");
+        graph.addVertex(v1);
+        Vertex v11 = new Vertex("1.1");
+        graph.addVertex(v11);
+        Vertex v111 = new Vertex("1.1.1");
+        graph.addVertex(v111);
+        Vertex v12 = new Vertex("1.2");
+        graph.addVertex(v12);
+        Vertex v121 = new Vertex("1.2.1");
+        graph.addVertex(v121);
+
+        Edge e11 = new Edge(v1.getName() + " -> " + v11.getName());
+        Edge e12 = new Edge(v1.getName() + " -> " + v12.getName());
+        Edge e111 = new Edge(v11.getName() + " -> " + v111.getName());
+        Edge e121 = new Edge(v12.getName() + " -> " + v121.getName());
+        Edge cycle = new Edge(v121.getName() + " -> " + v1.getName());
+
+        graph.addEdge(v1, v11, e11);
+        graph.addEdge(v1, v12, e12);
+        graph.addEdge(v11, v111, e111);
+        graph.addEdge(v12, v121, e121);
+        graph.addEdge(v121, v1, cycle);
+
+        FrozenGraph<Vertex, Edge> frozen = graph.freeze();
+        List<Edge> path;
+
+        path = frozen.getPath(v1, v111, strategy);
+        assertNotNull(path);
+        assertEquals(2, path.size());
+        assertEquals(e11, path.get(0));
+        assertEquals(e111, path.get(1));
+
+        path = frozen.getPath(v121, v111, strategy);
+        assertNotNull(path);
+        assertEquals(e111, path.get(path.size() - 1));
+        if (strategy != PathStrategy.DEPTH_FIRST) {
+            // depth first search on undirected graph may go around the cycle
+            assertEquals(3, path.size());
+            assertEquals(cycle, path.get(0));
+        }
+
+        assertNull(frozen.getPath(v1, new Vertex("non-existent-vertex"), strategy));
+        assertNull(frozen.getPath(null, null, strategy));
+    }
+}
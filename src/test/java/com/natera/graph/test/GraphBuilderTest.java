@@ -0,0 +1,117 @@
+package com.natera.graph.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.natera.graph.AbstractGraph;
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.FrozenGraph;
+import com.natera.graph.GraphBuilder;
+import com.natera.graph.PathStrategy;
+import com.natera.graph.UndirectedGraph;
+
+import junit.framework.TestCase;
+
+public class GraphBuilderTest extends TestCase {
+
+    public void testBulkMethods() {
+        DirectedGraph<Vertex, Edge> graph = new DirectedGraph<>();
+        Vertex v1 = new Vertex("1");
+        Vertex v2 = new Vertex("2");
+        assertEquals(2, graph.addVertices(Arrays.asList(v1, v2, v1, null)));
+        assertEquals(2, graph.vertexCount());
+
+        Map<Edge, Vertex[]> ends = new HashMap<>();
+        Edge e12 = new Edge("1 -> 2");
+        Edge e21 = new Edge("2 -> 1");
+        Edge orphan = new Edge("orphan");
+        ends.put(e12, new Vertex[] { v1, v2 });
+        ends.put(e21, new Vertex[] { v2, v1 });
+        ends.put(orphan, new Vertex[] { v1, new Vertex("3") });
+        assertEquals(2, graph.addEdges(Arrays.asList(e12, e21, e12, orphan), e -> ends.get(e)[0],
+                e -> ends.get(e)[1]));
+        assertEquals(Arrays.asList(e12), graph.getPath(v1, v2));
+        assertEquals(Arrays.asList(e21), graph.getPath(v2, v1));
+    }
+
+    /**
+     * Checks if the graph built in parallel keeps the edges in the same slots and
+     * finds the same paths as the one filled edge by edge
+     */
+    public void testBuilder() {
+        builder(new UndirectedGraph<Vertex, Edge>(), new UndirectedGraph<Vertex, Edge>());
+        builder(new DirectedGraph<Vertex, Edge>(), new DirectedGraph<Vertex, Edge>());
+    }
+
+    private void builder(AbstractGraph<Vertex, Edge> expected, AbstractGraph<Vertex, Edge> graph) {
+        int vertexCount = 20000;
+        int edgeCount = 100000;
+        Random random = new Random(7);
+        List<Vertex> vertices = new ArrayList<>();
+        GraphBuilder<Vertex, Edge> builder = new GraphBuilder<>(graph, vertexCount, edgeCount);
+        for (int i = 0; i < vertexCount; i++) {
+            Vertex v = new Vertex(String.valueOf(i));
+            vertices.add(v);
+            expected.addVertex(v);
+            builder.addVertex(v);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            Vertex src = vertices.get(random.nextInt(vertexCount));
+            Vertex dst = vertices.get(random.nextInt(vertexCount));
+            Edge e = new Edge(src + " -> " + dst + " #" + i);
+            expected.addEdge(src, dst, e);
+            builder.addEdge(src, dst, e);
+        }
+        // rejected edges are skipped
+        builder.addEdge(vertices.get(0), new Vertex("non-existent-vertex"), new Edge("orphan"));
+        assertSame(graph, builder.build());
+
+        assertEquals(vertexCount, graph.vertexCount());
+        for (int v = 0; v < vertexCount; v++) {
+            assertEquals(expected.outDegree(v), graph.outDegree(v));
+            assertEquals(expected.inDegree(v), graph.inDegree(v));
+            for (int slot = 0; slot < graph.outDegree(v); slot++) {
+                assertEquals(expected.outTarget(v, slot), graph.outTarget(v, slot));
+            }
+            for (int slot = 0; slot < graph.inDegree(v); slot++) {
+                assertEquals(expected.inSource(v, slot), graph.inSource(v, slot));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            Vertex src = vertices.get(random.nextInt(vertexCount));
+            Vertex dst = vertices.get(random.nextInt(vertexCount));
+            for (PathStrategy strategy : PathStrategy.values()) {
+                assertEquals(expected.getPath(src, dst, strategy), graph.getPath(src, dst, strategy));
+            }
+        }
+    }
+
+    /**
+     * Parallel edges added in both directions are kept by the undirected holders
+     * in the order of the addition, so the frozen copy finds the same paths
+     */
+    public void testFreezeBuilt() {
+        freezeBuilt(GraphBuilder.undirected(2, 3));
+        freezeBuilt(GraphBuilder.directed(2, 3));
+    }
+
+    private void freezeBuilt(GraphBuilder<Integer, String> builder) {
+        builder.addVertex(0).addVertex(1);
+        builder.addEdge(0, 1, "e1").addEdge(1, 0, "e2").addEdge(0, 1, "e3");
+        AbstractGraph<Integer, String> graph = builder.build();
+        FrozenGraph<Integer, String> frozen = graph.freeze();
+        for (PathStrategy strategy : PathStrategy.values()) {
+            assertEquals(graph.getPath(0, 1, strategy), frozen.getPath(0, 1, strategy));
+            assertEquals(graph.getPath(1, 0, strategy), frozen.getPath(1, 0, strategy));
+        }
+        if (graph.isDirected()) {
+            assertEquals(Arrays.asList("e2"), frozen.getPath(1, 0));
+        } else {
+            assertEquals(Arrays.asList("e1"), frozen.getPath(1, 0));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.natera.graph.test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import com.natera.graph.ConcurrentGraphWrapper;
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.PathStrategy;
+import com.natera.graph.metrics.GraphMetrics;
+import com.natera.graph.metrics.LatencyHistogram;
+import com.natera.graph.metrics.Operation;
+
+import junit.framework.TestCase;
+
+public class GraphMetricsTest extends TestCase {
+
+    public void testOperations() {
+        DirectedGraph<Vertex, Edge> graph = new DirectedGraph<>();
+        GraphMetrics metrics = new GraphMetrics();
+        graph.setListener(metrics);
+        Vertex[] chain = new Vertex[10];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(chain[i]);
+            if (i > 0) {
+                graph.addEdge(chain[i - 1], chain[i], new Edge(i - 1 + " -> " + i));
+            }
+        }
+        graph.getPath(chain[0], chain[9], PathStrategy.BREADTH_FIRST);
+        // 0 is the start, 1 to 9 are reached by scanning a single edge each
+        assertEquals(10, metrics.getVisitedVertices());
+        assertEquals(9, metrics.getScannedEdges());
+        graph.traverse(chain[5], v -> {
+        });
+        assertEquals(15, metrics.getVisitedVertices());
+        assertEquals(13, metrics.getScannedEdges());
+
+        Map<String, Long> counts = metrics.getOperationCounts();
+        assertEquals(10L, counts.get("ADD_VERTEX").longValue());
+        assertEquals(9L, counts.get("ADD_EDGE").longValue());
+        assertEquals(1L, counts.get("GET_PATH").longValue());
+        assertEquals(1L, counts.get("TRAVERSE").longValue());
+        assertEquals(0L, counts.get("GET_SHORTEST_PATH").longValue());
+        assertTrue(metrics.latency(Operation.GET_PATH).sum() > 0);
+
+        graph.setListener(null);
+        graph.getPath(chain[0], chain[9]);
+        assertEquals(1, metrics.latency(Operation.GET_PATH).count());
+        metrics.reset();
+        assertEquals(0, metrics.getVisitedVertices());
+        assertEquals(0L, metrics.getOperationCounts().get("ADD_VERTEX").longValue());
+    }
+
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.99));
+        for (int i = 0; i < 99; i++) {
+            histogram.record(10);
+        }
+        histogram.record(1000);
+        assertEquals(100, histogram.count());
+        assertEquals(19.9, histogram.mean(), 1e-9);
+        assertEquals(15, histogram.percentile(0.5));
+        assertEquals(15, histogram.percentile(0.99));
+        assertEquals(1023, histogram.percentile(1));
+    }
+
+    public void testLocks() {
+        for (boolean optimistic : new boolean[] { false, true }) {
+            DirectedGraph<Vertex, Edge> inner = new DirectedGraph<>();
+            ConcurrentGraphWrapper<Vertex, Edge> graph = optimistic ? ConcurrentGraphWrapper.optimistic(inner)
+                    : new ConcurrentGraphWrapper<>(inner, false);
+            GraphMetrics metrics = new GraphMetrics();
+            graph.setListener(metrics);
+            Vertex v1 = new Vertex("1");
+            Vertex v2 = new Vertex("2");
+            graph.addVertex(v1);
+            graph.addVertex(v2);
+            graph.addEdge(v1, v2, new Edge("1 -> 2"));
+            graph.getPath(v1, v2);
+            assertEquals(3, metrics.getWriteLockAcquisitions());
+            // successful optimistic reads do not take the lock
+            assertEquals(optimistic ? 0 : 1, metrics.getReadLockAcquisitions());
+        }
+    }
+
+    public void testJmx() throws Exception {
+        GraphMetrics metrics = new GraphMetrics();
+        metrics.operationCompleted(Operation.GET_PATH, 100, 5, 7);
+        assertTrue(metrics.register("test"));
+        assertFalse(metrics.register("test"));
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.natera.graph:type=GraphMetrics,name=\"test\"");
+            assertEquals(5L, server.getAttribute(name, "VisitedVertices"));
+            TabularData counts = (TabularData) server.getAttribute(name, "OperationCounts");
+            CompositeData row = counts.get(new Object[] { "GET_PATH" });
+            assertEquals(1L, row.get("value"));
+        } finally {
+            assertTrue(metrics.unregister());
+        }
+        assertFalse(metrics.unregister());
+    }
+}
@@ -1,19 +1,48 @@
 package com.natera.graph.test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 
+import com.natera.graph.AbstractGraph;
 import com.natera.graph.ConcurrentGraphWrapper;
 import com.natera.graph.DirectedGraph;
+import com.natera.graph.FrozenGraph;
 import com.natera.graph.Graph;
+import com.natera.graph.PathStrategy;
 import com.natera.graph.UndirectedGraph;
+import com.natera.graph.holders.CompactDirectedEdgesHolder;
+import com.natera.graph.holders.CompactUndirectedEdgesHolder;
+import com.natera.graph.holders.DirectedEdgesHolder;
+import com.natera.graph.holders.EdgesHolder;
+import com.natera.graph.holders.UndirectedEdgesHolder;
+import com.natera.graph.topology.LandmarkIndex;
+import com.natera.graph.topology.LazyTraversal;
+import com.natera.graph.topology.TopologySearch;
 
 import junit.framework.TestCase;
 
@@ -132,6 +161,514 @@ public class GraphTest extends TestCase {
         assertEquals(3, directConsumer.getCount());
     }
 
+    /**
+     * Checks if loops are kept once by edge holders and do not break searches
+     */
+    public void testLoops() {
+        loops(new DirectedEdgesHolder<>(new Vertex("d"), 0), new UndirectedEdgesHolder<>(new Vertex("u"), 0));
+        loops(new CompactDirectedEdgesHolder<>(new Vertex("d"), 0),
+                new CompactUndirectedEdgesHolder<>(new Vertex("u"), 0));
+
+        for (Graph<Vertex, Edge> graph : Arrays.<Graph<Vertex, Edge>> asList(new UndirectedGraph<>(),
+                new DirectedGraph<>())) {
+            Vertex v1 = new Vertex("1");
+            Vertex v2 = new Vertex("2");
+            graph.addVertex(v1);
+            graph.addVertex(v2);
+            graph.addEdge(v1, v1, new Edge("1 -> 1"));
+            Edge e12 = new Edge("1 -> 2");
+            graph.addEdge(v1, v2, e12);
+            for (PathStrategy strategy : PathStrategy.values()) {
+                assertEquals(Arrays.asList(e12), graph.getPath(v1, v2, strategy));
+            }
+            VertexCounter counter = new VertexCounter();
+            graph.traverse(v1, counter);
+            assertEquals(2, counter.getCount());
+        }
+    }
+
+    /**
+     * Checks if compact holders keep edges and neighbors in order while switching
+     * from inline storage to array and hash index
+     */
+    public void testCompactHolders() {
+        CompactDirectedEdgesHolder<Vertex, Edge> directed = new CompactDirectedEdgesHolder<>(new Vertex("d"), 0);
+        CompactUndirectedEdgesHolder<Vertex, Edge> undirected = new CompactUndirectedEdgesHolder<>(new Vertex("u"), 0);
+        List<Edge> edges = new ArrayList<>();
+        List<CompactDirectedEdgesHolder<Vertex, Edge>> neighbors = new ArrayList<>();
+        assertTrue(directed.getOutgoingEdges().isEmpty());
+        for (int i = 0; i < 20; i++) {
+            Edge e = new Edge("e" + i);
+            CompactDirectedEdgesHolder<Vertex, Edge> neighbor = new CompactDirectedEdgesHolder<>(new Vertex("" + i), i + 1);
+            edges.add(e);
+            neighbors.add(neighbor);
+            directed.addOutgoingEdge(e, neighbor);
+            undirected.addIngoingEdge(e, neighbor);
+
+            assertEquals(i + 1, directed.getOutgoingDegree());
+            assertEquals(0, directed.getIngoingDegree());
+            assertEquals(i + 1, undirected.getOutgoingDegree());
+            for (int slot = 0; slot <= i; slot++) {
+                assertSame(edges.get(slot), directed.getOutgoingEdge(slot));
+                assertSame(neighbors.get(slot), directed.getOutgoingNeighbor(slot));
+                assertSame(neighbors.get(slot), undirected.getOutgoingNeighbor(slot));
+            }
+            assertEquals(edges, new ArrayList<>(directed.getOutgoingEdges()));
+            assertTrue(directed.getOutgoingEdges().contains(e));
+            assertTrue(undirected.getIngoingEdges().contains(e));
+            assertFalse(directed.getIngoingEdges().contains(e));
+            assertFalse(directed.getOutgoingEdges().contains(new Edge("e" + i)));
+        }
+    }
+
+    public void testShortestHopPath() {
+        shortestHopPath(new UndirectedGraph<Vertex, Edge>(), PathStrategy.BREADTH_FIRST);
+        shortestHopPath(new DirectedGraph<Vertex, Edge>(), PathStrategy.BREADTH_FIRST);
+        shortestHopPath(new UndirectedGraph<Vertex, Edge>(), PathStrategy.BIDIRECTIONAL);
+        shortestHopPath(new DirectedGraph<Vertex, Edge>(), PathStrategy.BIDIRECTIONAL);
+    }
+
+    /**
+     * Bidirectional search should find paths as short as breadth first search on
+     * random graphs of different density
+     */
+    public void testBidirectionalPathLength() {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            int size = 10 + random.nextInt(200);
+            int edges = size / 2 + random.nextInt(size * 3);
+            bidirectionalPathLength(new UndirectedGraph<Vertex, Edge>(), random, size, edges);
+            bidirectionalPathLength(new DirectedGraph<Vertex, Edge>(), random, size, edges);
+        }
+    }
+
+    public void testCheapestPath() {
+        cheapestPath(new UndirectedGraph<Vertex, Edge>());
+        cheapestPath(new DirectedGraph<Vertex, Edge>());
+    }
+
+    /**
+     * Checks if traverse and path search do not go to stack overflow on a very long chain
+     */
+    public void testLongChain() {
+        longChain(new UndirectedGraph<Vertex, Edge>());
+        longChain(new DirectedGraph<Vertex, Edge>());
+    }
+
+    public void testConnectivity() {
+        for (AbstractGraph<Vertex, Edge> graph : Arrays.<AbstractGraph<Vertex, Edge>> asList(new UndirectedGraph<>(),
+                new DirectedGraph<>())) {
+            Vertex[] vertices = new Vertex[6];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = new Vertex(String.valueOf(i));
+                graph.addVertex(vertices[i]);
+            }
+            assertEquals(6, graph.componentCount());
+            graph.addEdge(vertices[0], vertices[1], new Edge("0 -> 1"));
+            graph.addEdge(vertices[2], vertices[1], new Edge("2 -> 1"));
+            graph.addEdge(vertices[3], vertices[4], new Edge("3 -> 4"));
+            graph.addEdge(vertices[4], vertices[3], new Edge("4 -> 3"));
+            assertEquals(3, graph.componentCount());
+
+            // weak connectivity of directed graphs ignores the direction
+            assertTrue(graph.isConnected(vertices[0], vertices[2]));
+            assertTrue(graph.isConnected(vertices[5], vertices[5]));
+            assertFalse(graph.isConnected(vertices[0], vertices[3]));
+            assertFalse(graph.isConnected(vertices[0], new Vertex("non-existent-vertex")));
+            assertEquals(graph.isDirected(), graph.getPath(vertices[0], vertices[2]) == null);
+            for (PathStrategy strategy : PathStrategy.values()) {
+                assertNull(graph.getPath(vertices[0], vertices[4], strategy));
+                assertNotNull(graph.getPath(vertices[3], vertices[4], strategy));
+            }
+            assertNull(graph.getShortestPath(vertices[4], vertices[5], e -> 1));
+        }
+    }
+
+    /**
+     * Checks if the parallel traversal visits the same vertices as the sequential
+     * one exactly once, the random graph is dense enough for bottom-up steps
+     */
+    public void testParallelTraverse() {
+        parallelTraverse(new UndirectedGraph<Vertex, Edge>());
+        parallelTraverse(new DirectedGraph<Vertex, Edge>());
+    }
+
+    private void parallelTraverse(AbstractGraph<Vertex, Edge> graph) {
+        int size = 50000;
+        Random random = new Random(3);
+        Vertex[] vertices = new Vertex[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(vertices[i]);
+        }
+        for (int i = 0; i < size * 3; i++) {
+            graph.addEdge(vertices[random.nextInt(size)], vertices[random.nextInt(size)], new Edge("e" + i));
+        }
+        Set<Vertex> expected = new HashSet<>();
+        graph.traverse(vertices[0], expected::add);
+        Map<Vertex, Integer> visited = new ConcurrentHashMap<>();
+        graph.parallelTraverse(vertices[0], v -> visited.merge(v, 1, Integer::sum));
+        assertEquals(expected, visited.keySet());
+        assertFalse(visited.containsValue(2));
+
+        visited.clear();
+        graph.freeze().parallelTraverse(vertices[0], v -> visited.merge(v, 1, Integer::sum),
+                ForkJoinPool.commonPool());
+        assertEquals(expected, visited.keySet());
+        assertFalse(visited.containsValue(2));
+    }
+
+    public void testLazyTraversal() {
+        lazyTraversal(new UndirectedGraph<Vertex, Edge>());
+        lazyTraversal(new DirectedGraph<Vertex, Edge>());
+    }
+
+    private void lazyTraversal(AbstractGraph<Vertex, Edge> graph) {
+        int size = 20000;
+        Random random = new Random(5);
+        Vertex[] vertices = new Vertex[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(vertices[i]);
+        }
+        for (int i = 0; i < size * 2; i++) {
+            graph.addEdge(vertices[random.nextInt(size)], vertices[random.nextInt(size)], new Edge("e" + i));
+        }
+        List<Vertex> expected = new ArrayList<>();
+        graph.traverse(vertices[0], expected::add);
+
+        List<Vertex> dfs = new ArrayList<>();
+        graph.dfs(vertices[0]).forEachRemaining(dfs::add);
+        assertEquals(expected, dfs);
+        FrozenGraph<Vertex, Edge> frozen = graph.freeze();
+        dfs.clear();
+        frozen.dfs(vertices[0]).forEachRemaining(dfs::add);
+        assertEquals(expected, dfs);
+        assertEquals(new HashSet<>(expected), frozen.stream(vertices[0]).parallel().collect(Collectors.toSet()));
+
+        List<Vertex> bfs = new ArrayList<>();
+        graph.bfs(vertices[0]).forEachRemaining(bfs::add);
+        assertEquals(vertices[0], bfs.get(0));
+        assertEquals(expected.size(), bfs.size());
+        assertEquals(new HashSet<>(expected), new HashSet<>(bfs));
+        // the first vertices of the breadth first order are the neighbors of the start
+        Iterator<Vertex> neighbors = graph.bfs(vertices[0]);
+        neighbors.next();
+        assertEquals(1, graph.getPath(vertices[0], neighbors.next(), PathStrategy.BREADTH_FIRST).size());
+
+        assertEquals(bfs, graph.stream(vertices[0]).collect(Collectors.toList()));
+        List<Vertex> parallel = graph.stream(vertices[0]).parallel().collect(Collectors.toList());
+        assertEquals(expected.size(), parallel.size());
+        assertEquals(new HashSet<>(expected), new HashSet<>(parallel));
+        // splitting expands the frontier ahead, so the traversal can be split while
+        // the queue holds the start vertex only
+        Spliterator.OfInt first = LazyTraversal.spliterator(graph, graph.getVertexId(vertices[0]));
+        Spliterator.OfInt second = first.trySplit();
+        assertNotNull(second);
+        Spliterator.OfInt third = second.trySplit();
+        assertNotNull(third);
+        Set<Integer> ids = new HashSet<>();
+        IntConsumer distinct = id -> assertTrue(ids.add(id));
+        first.forEachRemaining(distinct);
+        second.forEachRemaining(distinct);
+        third.forEachRemaining(distinct);
+        assertEquals(expected.size(), ids.size());
+        assertEquals(10, graph.stream(vertices[0]).limit(10).count());
+        assertTrue(graph.stream(vertices[0]).anyMatch(v -> v.equals(expected.get(expected.size() - 1))));
+
+        assertFalse(graph.dfs(new Vertex("missing")).hasNext());
+        assertEquals(0, graph.stream(new Vertex("missing")).count());
+    }
+
+    public void testBatchPaths() {
+        batchPaths(new UndirectedGraph<Vertex, Edge>());
+        batchPaths(new DirectedGraph<Vertex, Edge>());
+    }
+
+    private void batchPaths(AbstractGraph<Vertex, Edge> graph) {
+        int size = 3000;
+        Random random = new Random(9);
+        Vertex[] vertices = new Vertex[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(vertices[i]);
+        }
+        for (int i = 0; i < size * 3 / 2; i++) {
+            graph.addEdge(vertices[random.nextInt(size)], vertices[random.nextInt(size)], new Edge("e" + i));
+        }
+        List<Vertex> sources = new ArrayList<>();
+        List<Vertex> targets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            sources.add(vertices[random.nextInt(size)]);
+        }
+        for (int i = 0; i < 40; i++) {
+            targets.add(vertices[random.nextInt(size)]);
+        }
+        targets.add(sources.get(0));
+        targets.add(new Vertex("missing"));
+        sources.add(new Vertex("missing"));
+
+        List<List<Edge>> fromSource = graph.getPaths(sources.get(0), targets);
+        int[][] distances = graph.getDistances(sources, targets);
+        for (int j = 0; j < targets.size(); j++) {
+            List<Edge> expected = graph.getPath(sources.get(0), targets.get(j), PathStrategy.BREADTH_FIRST);
+            assertEquals(expected == null ? null : expected.size(),
+                    fromSource.get(j) == null ? null : fromSource.get(j).size());
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            for (int j = 0; j < targets.size(); j++) {
+                List<Edge> expected = graph.getPath(sources.get(i), targets.get(j), PathStrategy.BREADTH_FIRST);
+                int distance = expected == null ? -1 : expected.size();
+                if (sources.get(i) == targets.get(j)) {
+                    distance = 0;
+                }
+                assertEquals(distance, distances[i][j]);
+            }
+        }
+        assertTrue(Arrays.deepEquals(new int[][] { { -1, -1 } },
+                graph.getDistances(Arrays.asList(new Vertex("missing")), targets.subList(0, 2))));
+        // edges of the paths found backwards come from the source to the target
+        Vertex v1 = new Vertex("1");
+        Vertex v2 = new Vertex("2");
+        Vertex v3 = new Vertex("3");
+        Edge e12 = new Edge("1 -> 2");
+        Edge e23 = new Edge("2 -> 3");
+        graph.addVertex(v1);
+        graph.addVertex(v2);
+        graph.addVertex(v3);
+        graph.addEdge(v1, v2, e12);
+        graph.addEdge(v2, v3, e23);
+        assertEquals(Arrays.asList(Arrays.asList(e12, e23), null, Arrays.asList(e23)),
+                graph.getPaths(Arrays.asList(v1, v3, v2), v3));
+        assertEquals(Arrays.asList(Arrays.asList(e12, e23), Arrays.asList(e12)),
+                graph.getPaths(v1, Arrays.asList(v3, v2)));
+
+        Vertex sink = targets.get(1);
+        List<List<Edge>> toTarget = graph.getPaths(sources, sink);
+        for (int i = 0; i < sources.size(); i++) {
+            List<Edge> expected = graph.getPath(sources.get(i), sink, PathStrategy.BREADTH_FIRST);
+            List<Edge> path = toTarget.get(i);
+            assertEquals(expected == null ? null : expected.size(), path == null ? null : path.size());
+        }
+    }
+
+    public void testLandmarkIndex() throws IOException {
+        Path file = Files.createTempFile("landmarks", ".index");
+        try {
+            landmarkIndex(new UndirectedGraph<Vertex, Edge>(), file);
+            landmarkIndex(new DirectedGraph<Vertex, Edge>(), file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void landmarkIndex(AbstractGraph<Vertex, Edge> graph, Path file) throws IOException {
+        int size = 2000;
+        Random random = new Random(11);
+        Vertex[] vertices = new Vertex[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(vertices[i]);
+        }
+        Map<Edge, Double> costs = new HashMap<>();
+        for (int i = 0; i < size * 3; i++) {
+            Edge e = new Edge("e" + i);
+            graph.addEdge(vertices[random.nextInt(size)], vertices[random.nextInt(size)], e);
+            costs.put(e, 1.0 + random.nextInt(10));
+        }
+        ToDoubleFunction<Edge> cost = costs::get;
+        LandmarkIndex index = graph.buildLandmarkIndex(8, cost);
+        assertEquals(8, index.landmarks().length);
+        index.save(file);
+        LandmarkIndex loaded = LandmarkIndex.load(file);
+        assertTrue(Arrays.equals(index.landmarks(), loaded.landmarks()));
+        // header: magic, version, direction, vertices, landmarks
+        byte[] valid = Files.readAllBytes(file);
+        assertCorruptedIndex(file, valid, 12, 1 << 28);
+        assertCorruptedIndex(file, valid, 16, 1 << 28);
+        assertCorruptedIndex(file, valid, 16, -1);
+        assertCorruptedIndex(file, valid, 20, size);
+        Files.write(file, valid);
+
+        for (int i = 0; i < 200; i++) {
+            Vertex v1 = vertices[random.nextInt(size)];
+            Vertex v2 = vertices[random.nextInt(size)];
+            List<Edge> expected = graph.getShortestPath(v1, v2, cost);
+            List<Edge> path = graph.getGuidedPath(v1, v2, cost, loaded);
+            int id1 = graph.getVertexId(v1);
+            int id2 = graph.getVertexId(v2);
+            if (expected == null) {
+                assertNull(path);
+                continue;
+            }
+            double distance = expected.stream().mapToDouble(cost).sum();
+            assertEquals(distance, path.stream().mapToDouble(cost).sum());
+            assertTrue(index.lowerBound(id1, id2) <= distance);
+            assertTrue(index.upperBound(id1, id2) >= distance);
+            assertEquals(index.lowerBound(id1, id2), loaded.lowerBound(id1, id2));
+        }
+        // hop counts
+        LandmarkIndex hops = graph.buildLandmarkIndex(4, null);
+        for (int i = 0; i < 100; i++) {
+            Vertex v1 = vertices[random.nextInt(size)];
+            Vertex v2 = vertices[random.nextInt(size)];
+            List<Edge> expected = graph.getPath(v1, v2, PathStrategy.BREADTH_FIRST);
+            int id1 = graph.getVertexId(v1);
+            int id2 = graph.getVertexId(v2);
+            if (expected != null) {
+                assertTrue(hops.lowerBound(id1, id2) <= expected.size());
+                assertTrue(hops.upperBound(id1, id2) >= expected.size());
+            }
+        }
+    }
+
+    public void testStronglyConnectedComponents() {
+        DirectedGraph<Vertex, Edge> graph = new DirectedGraph<>();
+        int size = 300;
+        Random random = new Random(13);
+        Vertex[] vertices = new Vertex[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(vertices[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            graph.addEdge(vertices[random.nextInt(size)], vertices[random.nextInt(size)], new Edge("e" + i));
+        }
+        boolean[][] reachable = new boolean[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                reachable[i][j] = i == j || graph.getPath(vertices[i], vertices[j]) != null;
+            }
+        }
+
+        List<List<Vertex>> components = graph.stronglyConnectedComponents();
+        Map<Vertex, Integer> order = new HashMap<>();
+        for (int c = 0; c < components.size(); c++) {
+            for (Vertex v : components.get(c)) {
+                assertNull(order.put(v, c));
+            }
+        }
+        assertEquals(size, order.size());
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int ci = order.get(vertices[i]);
+                int cj = order.get(vertices[j]);
+                assertEquals(reachable[i][j] && reachable[j][i], ci == cj);
+                if (reachable[i][j]) {
+                    assertTrue(ci <= cj);
+                }
+                // searches pruned by the condensation find the same paths
+                assertEquals(i == j || reachable[i][j], i == j || graph.getPath(vertices[i], vertices[j]) != null);
+            }
+        }
+        assertNull(graph.topologicalOrder());
+
+        // the cached condensation is dropped once the graph is modified
+        int from = 0;
+        int to = 0;
+        while (!reachable[from][to] || reachable[to][from]) {
+            from = random.nextInt(size);
+            to = random.nextInt(size);
+        }
+        Edge back = new Edge("back");
+        graph.addEdge(vertices[to], vertices[from], back);
+        assertEquals(Arrays.asList(back), graph.getPath(vertices[to], vertices[from]));
+        assertTrue(graph.stronglyConnectedComponents().size() < components.size());
+    }
+
+    public void testTopologicalOrder() {
+        DirectedGraph<Vertex, Edge> graph = new DirectedGraph<>();
+        int size = 100000;
+        Vertex[] chain = new Vertex[size];
+        for (int i = 0; i < size; i++) {
+            chain[i] = new Vertex(String.valueOf(i));
+        }
+        // reversed insertion, so the ids are not already in the order
+        for (int i = size - 1; i >= 0; i--) {
+            graph.addVertex(chain[i]);
+        }
+        for (int i = 1; i < size; i++) {
+            graph.addEdge(chain[i - 1], chain[i], new Edge(i - 1 + " -> " + i));
+        }
+        assertEquals(Arrays.asList(chain), graph.topologicalOrder());
+        assertEquals(size - 1, graph.condensation().level(graph.condensation().componentOf(
+                graph.getVertexId(chain[size - 1]))));
+        assertNull(graph.getPath(chain[size - 1], chain[0]));
+
+        // a single long cycle is searched without recursion
+        graph.addEdge(chain[size - 1], chain[0], new Edge("loop"));
+        assertNull(graph.topologicalOrder());
+        assertEquals(1, graph.stronglyConnectedComponents().size());
+        assertNotNull(graph.getPath(chain[size - 1], chain[0]));
+    }
+
+    private void assertCorruptedIndex(Path file, byte[] valid, int offset, int value) throws IOException {
+        byte[] bytes = valid.clone();
+        ByteBuffer.wrap(bytes).putInt(offset, value);
+        Files.write(file, bytes);
+        try {
+            LandmarkIndex.load(file);
+            fail("Corrupted index should not be loaded");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    public void testReleaseSearchState() {
+        UndirectedGraph<Vertex, Edge> graph = new UndirectedGraph<>();
+        Vertex[] chain = new Vertex[100];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(chain[i]);
+            if (i > 0) {
+                graph.addEdge(chain[i - 1], chain[i], new Edge(i - 1 + " -> " + i));
+            }
+        }
+        Map<PathStrategy, List<Edge>> paths = new HashMap<>();
+        for (PathStrategy strategy : PathStrategy.values()) {
+            paths.put(strategy, graph.getPath(chain[0], chain[50], strategy));
+        }
+        long visited = TopologySearch.visitedVertices();
+        TopologySearch.releaseThreadState();
+        assertEquals(visited, TopologySearch.visitedVertices());
+        // the arrays are allocated again by the kinds of searches using them
+        for (PathStrategy strategy : PathStrategy.values()) {
+            assertEquals(paths.get(strategy), graph.getPath(chain[0], chain[50], strategy));
+            assertEquals(50, graph.getPath(chain[50], chain[0], strategy).size());
+        }
+        assertEquals(paths.get(PathStrategy.BREADTH_FIRST), graph.getShortestPath(chain[0], chain[50], e -> 1));
+        assertTrue(TopologySearch.visitedVertices() > visited);
+    }
+
+    /**
+     * Checks if searches started from inside of the traverse consumer do not
+     * spoil the visited marks of the outer one
+     */
+    public void testNestedSearches() {
+        nestedSearches(new UndirectedGraph<Vertex, Edge>());
+        nestedSearches(new DirectedGraph<Vertex, Edge>());
+    }
+
+    private void nestedSearches(Graph<Vertex, Edge> graph) {
+        Vertex[] chain = new Vertex[50];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(chain[i]);
+            if (i > 0) {
+                graph.addEdge(chain[i - 1], chain[i], new Edge(i - 1 + " -> " + i));
+            }
+        }
+        int[] count = new int[1];
+        graph.traverse(chain[0], v -> {
+            count[0]++;
+            for (PathStrategy strategy : PathStrategy.values()) {
+                List<Edge> path = graph.getPath(chain[0], chain[chain.length - 1], strategy);
+                assertEquals(chain.length - 1, path.size());
+            }
+        });
+        assertEquals(chain.length, count[0]);
+    }
+
     /**
      * Checks if the search algorithm does not go to stack overflow in case of cyclic graph
      */
@@ -222,6 +759,163 @@ public class GraphTest extends TestCase {
         assertNull(path);
     }
 
+    private void loops(EdgesHolder<Vertex, Edge> directed, EdgesHolder<Vertex, Edge> undirected) {
+        Edge dLoop = new Edge("d -> d");
+        Edge uLoop = new Edge("u -> u");
+        directed.addOutgoingEdge(dLoop, directed);
+        directed.addIngoingEdge(dLoop, directed);
+        undirected.addOutgoingEdge(uLoop, undirected);
+        undirected.addIngoingEdge(uLoop, undirected);
+        assertEquals(1, directed.getOutgoingDegree());
+        assertEquals(1, directed.getIngoingDegree());
+        assertEquals(1, undirected.getOutgoingEdges().size());
+        assertSame(undirected, undirected.getOutgoingNeighbor(0));
+        assertTrue(undirected.getIngoingEdges().contains(uLoop));
+    }
+
+    /**
+     * Builds a ring of vertices with a shortcut from the first to the middle one
+     * and checks if the strategy prefers the shortcut.
+     */
+    private void shortestHopPath(Graph<Vertex, Edge> graph, PathStrategy strategy) {
+        final int length = 20;
+        Vertex[] ring = new Vertex[length];
+        for (int i = 0; i < length; i++) {
+            ring[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(ring[i]);
+        }
+        for (int i = 0; i < length; i++) {
+            Vertex next = ring[(i + 1) % length];
+            graph.addEdge(ring[i], next, new Edge(ring[i] + " -> " + next));
+        }
+        Edge shortcut = new Edge("shortcut");
+        graph.addEdge(ring[0], ring[length / 2], shortcut);
+
+        List<Edge> path = graph.getPath(ring[0], ring[length / 2 + 1], strategy);
+        assertNotNull(path);
+        assertEquals(2, path.size());
+        assertEquals(shortcut, path.get(0));
+        assertEquals(ring[length / 2] + " -> " + ring[length / 2 + 1], path.get(1).getName());
+
+        path = graph.getPath(ring[0], ring[1], strategy);
+        assertNotNull(path);
+        assertEquals(1, path.size());
+
+        Vertex orphan = new Vertex("orphan");
+        graph.addVertex(orphan);
+        assertNull(graph.getPath(ring[0], orphan, strategy));
+        assertNull(graph.getPath(orphan, ring[0], strategy));
+        assertNull(graph.getPath(null, ring[0], strategy));
+    }
+
+    private void bidirectionalPathLength(Graph<Vertex, Edge> graph, Random random, int size, int edges) {
+        Vertex[] vertices = new Vertex[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(vertices[i]);
+        }
+        for (int i = 0; i < edges; i++) {
+            Vertex src = vertices[random.nextInt(size)];
+            Vertex dst = vertices[random.nextInt(size)];
+            graph.addEdge(src, dst, new Edge(src + " -> " + dst + " #" + i));
+        }
+        for (int i = 0; i < 100; i++) {
+            Vertex v1 = vertices[random.nextInt(size)];
+            Vertex v2 = vertices[random.nextInt(size)];
+            List<Edge> expected = graph.getPath(v1, v2, PathStrategy.BREADTH_FIRST);
+            List<Edge> path = graph.getPath(v1, v2, PathStrategy.BIDIRECTIONAL);
+            if (expected == null) {
+                assertNull(path);
+            } else {
+                assertNotNull(path);
+                assertEquals(v1 + " -> " + v2, expected.size(), path.size());
+            }
+        }
+    }
+
+    /**
+     * Builds a grid with expensive horizontal edges in the first row and checks
+     * if Dijkstra and A* avoid them.
+     */
+    private void cheapestPath(Graph<Vertex, Edge> graph) {
+        final int size = 10;
+        Map<Vertex, int[]> coordinates = new HashMap<>();
+        Map<Edge, Double> costs = new HashMap<>();
+        Vertex[][] grid = new Vertex[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                grid[row][col] = new Vertex(row + ":" + col);
+                coordinates.put(grid[row][col], new int[] { row, col });
+                graph.addVertex(grid[row][col]);
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (col + 1 < size) {
+                    Edge e = new Edge(grid[row][col] + " -> " + grid[row][col + 1]);
+                    graph.addEdge(grid[row][col], grid[row][col + 1], e);
+                    costs.put(e, row == 0 ? 100.0 : 1.0);
+                }
+                if (row + 1 < size) {
+                    Edge e = new Edge(grid[row][col] + " -> " + grid[row + 1][col]);
+                    graph.addEdge(grid[row][col], grid[row + 1][col], e);
+                    costs.put(e, 1.0);
+                }
+            }
+        }
+        ToDoubleFunction<Edge> cost = costs::get;
+        ToDoubleBiFunction<Vertex, Vertex> manhattan = (v1, v2) -> {
+            int[] c1 = coordinates.get(v1);
+            int[] c2 = coordinates.get(v2);
+            return Math.abs(c1[0] - c2[0]) + Math.abs(c1[1] - c2[1]);
+        };
+
+        List<Edge> dijkstra = graph.getShortestPath(grid[0][0], grid[1][size - 1], cost);
+        List<Edge> aStar = graph.getShortestPath(grid[0][0], grid[1][size - 1], cost, manhattan);
+        assertNotNull(dijkstra);
+        assertNotNull(aStar);
+        // down and along the second row
+        assertEquals(size, dijkstra.size());
+        assertEquals(size, aStar.size());
+        assertEquals(grid[0][0] + " -> " + grid[1][0], dijkstra.get(0).getName());
+        assertEquals(grid[0][0] + " -> " + grid[1][0], aStar.get(0).getName());
+        assertEquals((double) size, dijkstra.stream().mapToDouble(cost).sum());
+        assertEquals((double) size, aStar.stream().mapToDouble(cost).sum());
+
+        assertNull(graph.getShortestPath(grid[0][0], new Vertex("orphan"), cost));
+        try {
+            graph.getShortestPath(grid[0][0], grid[size - 1][size - 1], e -> -1);
+            fail("Negative cost should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void longChain(Graph<Vertex, Edge> graph) {
+        final int length = 300000;
+        Vertex first = new Vertex("0");
+        graph.addVertex(first);
+        Vertex current = first;
+        for (int i = 1; i <= length; i++) {
+            Vertex v = new Vertex(String.valueOf(i));
+            graph.addVertex(v);
+            graph.addEdge(current, v, new Edge(current + " -> " + v));
+            current = v;
+        }
+
+        for (PathStrategy strategy : PathStrategy.values()) {
+            List<Edge> path = graph.getPath(first, current, strategy);
+            assertNotNull(path);
+            assertEquals(length, path.size());
+            assertEquals("0 -> 1", path.get(0).getName());
+            assertEquals((length - 1) + " -> " + length, path.get(length - 1).getName());
+        }
+
+        int[] count = new int[1];
+        graph.traverse(first, v -> count[0]++);
+        assertEquals(length + 1, count[0]);
+    }
+
     private void traverseGraph(Graph<Vertex, Edge> graph, Consumer<Vertex> consumer) {
         Vertex v1 = new Vertex("1");
         graph.addVertex(v1);
@@ -260,7 +954,11 @@ public class GraphTest extends TestCase {
      * Finally, all of read task should successfully obtain path from first to the last vertex.
      */
     public void testConcurrency() throws InterruptedException {
-        Graph<Vertex, Edge> graph = new ConcurrentGraphWrapper<>(new UndirectedGraph<>(), false);
+        concurrency(new ConcurrentGraphWrapper<>(new UndirectedGraph<>(), false));
+        concurrency(ConcurrentGraphWrapper.optimistic(new UndirectedGraph<>()));
+    }
+
+    private void concurrency(Graph<Vertex, Edge> graph) throws InterruptedException {
         Vertex v1 = new Vertex("start");
         Vertex v2 = new Vertex("end");
 
@@ -0,0 +1,124 @@
+package com.natera.graph.test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.natera.graph.DirectedGraph;
+import com.natera.graph.Graph;
+import com.natera.graph.UndirectedGraph;
+
+/**
+ * Compares the heap used by graphs with the default compact edge holders and
+ * by the baseline storage the holders replaced: hash sets of the edges for
+ * every vertex and the end vertices for every edge. Every vertex gets from 0
+ * to 4 outgoing edges.
+ * <p>
+ * Run with a large enough heap, e.g.
+ * {@code java -Xmx4g -cp target/classes:target/test-classes:<log4j.jar> com.natera.graph.test.HolderFootprint 1000000}
+ */
+public class HolderFootprint {
+    /**
+     * Keeps the measured graph reachable until the memory is measured.
+     */
+    private static volatile Object retained;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        measure("directed, compact holders", DirectedGraph::new, size);
+        measure("directed, baseline", () -> new BaselineGraph<>(true), size);
+        measure("undirected, compact holders", UndirectedGraph::new, size);
+        measure("undirected, baseline", () -> new BaselineGraph<>(false), size);
+    }
+
+    private static void measure(String name, Supplier<Graph<Integer, Long>> factory, int size) {
+        Integer[] vertices = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = i;
+        }
+        Random random = new Random(42);
+        long before = usedMemory();
+        Graph<Integer, Long> graph = factory.get();
+        for (Integer v : vertices) {
+            graph.addVertex(v);
+        }
+        long edges = 0;
+        for (int i = 0; i < size; i++) {
+            for (int degree = random.nextInt(5); degree > 0; degree--) {
+                graph.addEdge(vertices[i], vertices[random.nextInt(size)], edges++);
+            }
+        }
+        retained = graph;
+        long after = usedMemory();
+        retained = null;
+        System.out.println(String.format("%-28s %,d vertices, %,d edges: %,d bytes (%.1f per vertex)", name, size,
+                edges, after - before, (after - before) / (double) size));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Storage of the graph before the compact holders: every vertex maps to the
+     * hash sets of its edges, one set for both directions in undirected graphs,
+     * and every edge maps to its end vertices. Only the insertion is supported.
+     */
+    private static class BaselineGraph<V, E> implements Graph<V, E> {
+        private final boolean directed;
+        private final Map<V, Holder<E>> vertices = new HashMap<>();
+        private final Map<E, Object[]> edges = new HashMap<>();
+
+        BaselineGraph(boolean directed) {
+            this.directed = directed;
+        }
+
+        @Override
+        public boolean addVertex(V v) {
+            if (v == null || vertices.containsKey(v)) {
+                return false;
+            }
+            vertices.put(v, new Holder<E>(directed));
+            return true;
+        }
+
+        @Override
+        public boolean addEdge(V src, V dst, E e) {
+            if (e == null || edges.containsKey(e) || !vertices.containsKey(src) || !vertices.containsKey(dst)) {
+                return false;
+            }
+            vertices.get(src).outEdges.add(e);
+            vertices.get(dst).inEdges.add(e);
+            edges.put(e, new Object[] { src, dst });
+            return true;
+        }
+
+        @Override
+        public List<E> getPath(V v1, V v2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void traverse(V start, Consumer<? super V> consumer) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class Holder<E> {
+        private final Set<E> inEdges = new HashSet<>();
+        private final Set<E> outEdges;
+
+        Holder(boolean directed) {
+            outEdges = directed ? new HashSet<>() : inEdges;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.natera.graph.test;
+
+import java.util.Arrays;
+
+import com.natera.graph.PathStrategy;
+import com.natera.graph.primitive.DirectedIntGraph;
+import com.natera.graph.primitive.DirectedLongGraph;
+import com.natera.graph.primitive.IntGraph;
+import com.natera.graph.primitive.LongGraph;
+import com.natera.graph.primitive.UndirectedIntGraph;
+import com.natera.graph.primitive.UndirectedLongGraph;
+
+import junit.framework.TestCase;
+
+public class PrimitiveGraphTest extends TestCase {
+
+    public void testAddMethods() {
+        IntGraph graph = new UndirectedIntGraph();
+        assertTrue(graph.addVertex(1));
+        assertFalse("Vertex should not be added twice", graph.addVertex(1));
+        assertTrue(graph.addVertex(-7));
+        assertFalse("Edge to a not existent vertex", graph.addEdge(1, 2, 100));
+        assertTrue(graph.addEdge(1, -7, 100));
+        assertFalse("Edge should not be added twice", graph.addEdge(-7, 1, 100));
+    }
+
+    public void testIntGraph() {
+        for (PathStrategy strategy : PathStrategy.values()) {
+            IntGraph directed = intChain(new DirectedIntGraph(), 1000);
+            assertTrue(Arrays.equals(new int[] { 10003, 10004 }, directed.getPath(2, 4, strategy)));
+            assertNull(directed.getPath(4, 2, strategy));
+            assertEquals(999, directed.getPath(0, 999, strategy).length);
+
+            IntGraph undirected = intChain(new UndirectedIntGraph(), 1000);
+            assertTrue(Arrays.equals(new int[] { 10004, 10003 }, undirected.getPath(4, 2, strategy)));
+            assertNull(undirected.getPath(4, 1000, strategy));
+        }
+        IntGraph graph = intChain(new DirectedIntGraph(), 10);
+        graph.addEdge(0, 9, 1);
+        assertTrue(Arrays.equals(new int[] { 1 }, graph.getPath(0, 9, PathStrategy.BREADTH_FIRST)));
+        assertEquals(9, graph.getShortestPath(0, 9, e -> e == 1 ? 100 : 1).length);
+
+        int[] sum = new int[1];
+        graph.traverse(5, v -> sum[0] += v);
+        assertEquals(5 + 6 + 7 + 8 + 9, sum[0]);
+    }
+
+    public void testLongGraph() {
+        final long base = 1L << 40;
+        for (PathStrategy strategy : PathStrategy.values()) {
+            LongGraph directed = longChain(new DirectedLongGraph(), base, 1000);
+            assertTrue(Arrays.equals(new long[] { -base - 3, -base - 4 },
+                    directed.getPath(base + 2, base + 4, strategy)));
+            assertNull(directed.getPath(base + 4, base + 2, strategy));
+
+            LongGraph undirected = longChain(new UndirectedLongGraph(), base, 1000);
+            assertEquals(999, undirected.getPath(base + 999, base, strategy).length);
+            assertNull(undirected.getPath(base, 0, strategy));
+        }
+        LongGraph graph = longChain(new UndirectedLongGraph(), base, 10);
+        long[] count = new long[1];
+        graph.traverse(base + 5, v -> count[0]++);
+        assertEquals(10, count[0]);
+        assertEquals(3, graph.getShortestPath(base, base + 3, e -> 1).length);
+    }
+
+    private IntGraph intChain(IntGraph graph, int length) {
+        for (int i = 0; i < length; i++) {
+            graph.addVertex(i);
+            if (i > 0) {
+                graph.addEdge(i - 1, i, 10000 + i);
+            }
+        }
+        return graph;
+    }
+
+    private LongGraph longChain(LongGraph graph, long base, int length) {
+        for (int i = 0; i < length; i++) {
+            graph.addVertex(base + i);
+            if (i > 0) {
+                graph.addEdge(base + i - 1, base + i, -base - i);
+            }
+        }
+        return graph;
+    }
+}
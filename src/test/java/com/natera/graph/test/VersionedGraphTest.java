@@ -0,0 +1,189 @@
+package com.natera.graph.test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.natera.graph.PathStrategy;
+import com.natera.graph.VersionedGraph;
+import com.natera.graph.VersionedGraph.Snapshot;
+import com.natera.graph.util.PersistentArray;
+
+import junit.framework.TestCase;
+
+public class VersionedGraphTest extends TestCase {
+
+    public void testPersistentArray() {
+        PersistentArray<Integer> array = PersistentArray.empty();
+        PersistentArray<Integer> previous = array;
+        for (int i = 0; i < 5000; i++) {
+            array = array.append(i);
+        }
+        PersistentArray<Integer> changed = array.set(1234, -1);
+        assertEquals(0, previous.size());
+        assertEquals(5000, array.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, array.get(i).intValue());
+            assertEquals(i == 1234 ? -1 : i, changed.get(i).intValue());
+        }
+        try {
+            array.get(5000);
+            fail("Index out of the array should not be read");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    public void testSnapshots() {
+        for (boolean directed : new boolean[] { true, false }) {
+            VersionedGraph<Vertex, Edge> graph = new VersionedGraph<>(directed);
+            Vertex v1 = new Vertex("1");
+            Vertex v2 = new Vertex("2");
+            Vertex v3 = new Vertex("3");
+            Edge e12 = new Edge("1 -> 2");
+            Edge e23 = new Edge("2 -> 3");
+            graph.addVertex(v1);
+            graph.addVertex(v2);
+            graph.addEdge(v1, v2, e12);
+            Snapshot<Vertex, Edge> before = graph.snapshot();
+            graph.update(changes -> {
+                changes.addVertex(v3);
+                changes.addEdge(v2, v3, e23);
+            });
+
+            assertEquals(2, before.vertexCount());
+            assertEquals(1, before.edgeCount());
+            assertEquals(-1, before.getVertexId(v3));
+            assertNull(before.getPath(v1, v3));
+            for (PathStrategy strategy : PathStrategy.values()) {
+                assertEquals(Arrays.asList(e12, e23), graph.getPath(v1, v3, strategy));
+                assertEquals(directed ? null : Arrays.asList(e23, e12), graph.getPath(v3, v1, strategy));
+            }
+            assertEquals(Arrays.asList(e12, e23), graph.getShortestPath(v1, v3, e -> 1));
+            assertFalse(graph.addEdge(v1, v2, e12));
+            try {
+                before.addVertex(v3);
+                fail("Snapshot should not be modified");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testRollback() {
+        VersionedGraph<Vertex, Edge> graph = new VersionedGraph<>(true);
+        Vertex v1 = new Vertex("1");
+        Vertex v2 = new Vertex("2");
+        Edge e12 = new Edge("1 -> 2");
+        graph.addVertex(v1);
+        try {
+            graph.update(changes -> {
+                changes.addVertex(v2);
+                changes.addEdge(v1, v2, e12);
+                throw new IllegalStateException("failed update");
+            });
+            fail("Exception should be passed through");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, graph.snapshot().vertexCount());
+        assertEquals(0, graph.snapshot().edgeCount());
+        assertTrue(graph.addVertex(v2));
+        assertTrue(graph.addEdge(v1, v2, e12));
+        assertEquals(Arrays.asList(e12), graph.getPath(v1, v2));
+    }
+
+    /**
+     * Checks if writers are not blocked by a slow consumer of the traversal and
+     * the traversal sees the version it was started on
+     */
+    public void testSlowReader() throws Exception {
+        VersionedGraph<Vertex, Edge> graph = new VersionedGraph<>(false);
+        Vertex[] chain = new Vertex[100];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new Vertex(String.valueOf(i));
+            graph.addVertex(chain[i]);
+            if (i > 0) {
+                graph.addEdge(chain[i - 1], chain[i], new Edge(i - 1 + " -> " + i));
+            }
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        int[] count = new int[1];
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> reader = executor.submit(() -> {
+                graph.traverse(chain[0], v -> {
+                    if (count[0]++ == 0) {
+                        started.countDown();
+                        try {
+                            assertTrue(written.await(10, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+                return null;
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 100; i++) {
+                Vertex v = new Vertex("new " + i);
+                graph.addVertex(v);
+                graph.addEdge(chain[i], v, new Edge(i + " -> new " + i));
+            }
+            written.countDown();
+            reader.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(chain.length, count[0]);
+        assertEquals(chain.length * 2, graph.snapshot().vertexCount());
+    }
+
+    /**
+     * Every update adds a vertex together with the edge from the root, so every
+     * vertex of any version should be reachable
+     */
+    public void testConsistentVersions() throws Exception {
+        VersionedGraph<Vertex, Edge> graph = new VersionedGraph<>(true);
+        Vertex root = new Vertex("root");
+        graph.addVertex(root);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                Vertex previous = root;
+                for (int i = 0; i < 3000; i++) {
+                    Vertex v = new Vertex(String.valueOf(i));
+                    Vertex parent = previous;
+                    graph.update(changes -> {
+                        changes.addVertex(v);
+                        changes.addEdge(parent, v, new Edge(parent + " -> " + v));
+                    });
+                    previous = i % 100 == 0 ? root : v;
+                }
+                writing.set(false);
+            });
+            Runnable check = () -> {
+                while (writing.get()) {
+                    Snapshot<Vertex, Edge> snapshot = graph.snapshot();
+                    int[] count = new int[1];
+                    snapshot.traverse(root, v -> count[0]++);
+                    assertEquals(snapshot.vertexCount(), count[0]);
+                    assertEquals(snapshot.vertexCount() - 1, snapshot.edgeCount());
+                }
+            };
+            Future<?> reader1 = executor.submit(check);
+            Future<?> reader2 = executor.submit(check);
+            writer.get(60, TimeUnit.SECONDS);
+            reader1.get(60, TimeUnit.SECONDS);
+            reader2.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}